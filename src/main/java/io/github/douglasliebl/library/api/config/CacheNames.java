@@ -0,0 +1,11 @@
+package io.github.douglasliebl.library.api.config;
+
+public final class CacheNames {
+
+    public static final String BOOKS = "books";
+    public static final String BOOKS_BY_ISBN = "booksByIsbn";
+    public static final String COUNT_ESTIMATES = "countEstimates";
+
+    private CacheNames() {
+    }
+}
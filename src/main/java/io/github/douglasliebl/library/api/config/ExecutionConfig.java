@@ -0,0 +1,106 @@
+package io.github.douglasliebl.library.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Selects the threads that run requests, scheduled jobs and mail delivery. With
+ * {@code app.execution.mode=virtual} they run on virtual threads and the connection pool becomes the
+ * effective concurrency bound; on a JVM without virtual threads (before 21) it falls back to platform
+ * threads with a warning.
+ */
+@Slf4j
+@Configuration
+public class ExecutionConfig {
+
+    public enum ExecutionMode { PLATFORM, VIRTUAL }
+
+    private final ExecutionMode mode;
+
+    public ExecutionConfig(@Value("${app.execution.mode:platform}") String mode) {
+        ExecutionMode requested = ExecutionMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        if (requested == ExecutionMode.VIRTUAL && !virtualThreadsAvailable()) {
+            log.warn("virtual threads are not available on Java {}, falling back to platform threads",
+                    Runtime.version().feature());
+            requested = ExecutionMode.PLATFORM;
+        }
+        this.mode = requested;
+        log.info("running requests, scheduled jobs and mail delivery on {} threads", this.mode.name().toLowerCase(Locale.ROOT));
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Thread factory for background work such as mail delivery.
+     */
+    @Bean
+    public ThreadFactory workerThreadFactory() {
+        return threadFactory("worker-");
+    }
+
+    @Bean
+    public TaskScheduler taskScheduler(@Value("${app.execution.scheduler-pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadFactory(threadFactory("scheduling-"));
+        return scheduler;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> requestExecutorCustomizer() {
+        return protocolHandler -> {
+            if (mode == ExecutionMode.VIRTUAL) {
+                protocolHandler.setExecutor(virtualThreadPerTaskExecutor());
+            }
+        };
+    }
+
+    private ThreadFactory threadFactory(String prefix) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            return virtualThreadFactory(prefix);
+        }
+        return new CustomizableThreadFactory(prefix);
+    }
+
+    private ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) method.invoke(null, virtualThreadFactory("http-vt-"));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return virtualThreadFactory("probe-") != null;
+    }
+
+    /**
+     * Creates {@code Thread.ofVirtual().name(prefix, 0).factory()} reflectively, so the application still
+     * compiles and runs on Java 17. Returns null when virtual threads are not available.
+     */
+    static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
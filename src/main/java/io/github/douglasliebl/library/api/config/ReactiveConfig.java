@@ -0,0 +1,22 @@
+package io.github.douglasliebl.library.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class ReactiveConfig {
+
+    /**
+     * Runs the blocking JPA calls of the reactive endpoints. Its threads are capped at the size of the
+     * connection pool, since more could only wait for a connection; requests beyond the queue cap are
+     * answered with 503.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler reactiveBlockingScheduler(@Value("${app.reactive.blocking-threads:20}") int threads,
+                                               @Value("${app.reactive.queue-capacity:10000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "reactive-jpa");
+    }
+}
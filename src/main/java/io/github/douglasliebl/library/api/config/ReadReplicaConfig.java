@@ -0,0 +1,76 @@
+package io.github.douglasliebl.library.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds read replicas behind the primary configured in {@code spring.datasource} when
+ * {@code app.datasource.replica-urls} is set. Replicas share the primary's credentials and
+ * {@code spring.datasource.hikari} settings, except for a short connection timeout: a replica is only
+ * skipped once a connection attempt failed, and every read waits for that attempt, so a replica that is
+ * down or saturated must fail fast. See {@link ReadWriteRoutingDataSource} for the routing.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replica-urls")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${app.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${app.datasource.replica-retry-interval:PT30S}") Duration retryInterval,
+            @Value("${app.datasource.replica-connection-timeout:PT0.25S}") Duration replicaConnectionTimeout) {
+        HikariDataSource primary = pool(properties, environment, properties.determineUrl(), "primary");
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (!url.isBlank()) {
+                HikariDataSource replica = pool(properties, environment, url.trim(), "replica-" + replicas.size());
+                replica.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+                replicas.add(replica);
+            }
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, retryInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    /**
+     * Hibernate holds a connection for the whole session by default, and with open-in-view that is the
+     * whole request: the first transaction would pick the database for all the others.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment, String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.douglasliebl.library.api.config;
+
+import io.github.douglasliebl.library.api.metrics.SqlStatistics;
+import io.github.douglasliebl.library.api.metrics.SqlStatisticsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Hooks {@link SqlStatistics} into Hibernate and counts the SQL work of every request. Set
+ * {@code app.sql-statistics.headers=true} while debugging to get the counts back as response headers.
+ */
+@Configuration
+public class SqlStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlStatistics.SessionListener.class.getName());
+            properties.put(AvailableSettings.INTERCEPTOR, new SqlStatistics.LoadInterceptor());
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(
+            MeterRegistry registry,
+            @Value("${app.sql-statistics.headers:false}") boolean headers,
+            @Value("${app.sql-statistics.warn-statements:20}") long warnStatements) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatisticsFilter(registry, headers, warnStatements));
+        // Outermost, so the counts cover every other filter as well.
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.douglasliebl.library.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookAvailabilityDTO {
+
+    private List<Long> available;
+
+    private List<Long> loaned;
+
+    private List<Long> notFound;
+}
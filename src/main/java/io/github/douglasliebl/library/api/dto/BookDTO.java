@@ -1,5 +1,6 @@
 package io.github.douglasliebl.library.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,4 +23,10 @@ public class BookDTO {
 
     @NotEmpty
     private String isbn;
+
+    /**
+     * Sent as the {@code ETag} header rather than in the body.
+     */
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,17 @@
+package io.github.douglasliebl.library.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportErrorDTO {
+
+    private long line;
+    private String isbn;
+    private String message;
+}
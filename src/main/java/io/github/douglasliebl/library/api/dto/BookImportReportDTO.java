@@ -0,0 +1,23 @@
+package io.github.douglasliebl.library.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportReportDTO {
+
+    private long imported;
+    private long rejected;
+
+    // The first app.books.import.max-errors rejected lines; rejected counts all of them.
+    @Builder.Default
+    private List<BookImportErrorDTO> errors = new ArrayList<>();
+}
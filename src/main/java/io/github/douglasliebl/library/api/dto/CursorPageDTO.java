@@ -0,0 +1,61 @@
+package io.github.douglasliebl.library.api.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset page envelope, {@code {"content": [...], "size", "next"}}, where {@code next} is the cursor of
+ * the following page or {@code null} on the last one. Like {@link PageDTO}, the rows are mapped while the
+ * JSON is generated.
+ */
+@Getter
+@JsonSerialize(using = CursorPageDTO.Serializer.class)
+public final class CursorPageDTO<E> {
+
+    private final List<E> content;
+    @Getter(AccessLevel.NONE)
+    private final Function<E, ?> mapper;
+    private final int size;
+    private final String next;
+
+    private CursorPageDTO(List<E> content, Function<E, ?> mapper, int size, String next) {
+        this.content = content;
+        this.mapper = mapper;
+        this.size = size;
+        this.next = next;
+    }
+
+    public static <E> CursorPageDTO<E> of(Slice<E> slice, Function<E, ?> mapper, String next) {
+        return new CursorPageDTO<>(slice.getContent(), mapper, slice.getSize(), next);
+    }
+
+    static class Serializer extends StdSerializer<CursorPageDTO<?>> {
+
+        @SuppressWarnings("unchecked")
+        Serializer() {
+            super((Class<CursorPageDTO<?>>) (Class<?>) CursorPageDTO.class);
+        }
+
+        @Override
+        public void serialize(CursorPageDTO<?> page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            writeRows(page, generator, provider);
+            generator.writeNumberField("size", page.getSize());
+            generator.writeStringField("next", page.getNext());
+            generator.writeEndObject();
+        }
+
+        private static <E> void writeRows(CursorPageDTO<E> page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            MappedRows.write(page.getContent(), page.mapper, generator, provider);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.douglasliebl.library.api.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanBatchDTO {
+
+    @NotEmpty
+    private String customer;
+
+    @NotEmpty
+    @Email
+    private String email;
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<String> isbns;
+}
@@ -0,0 +1,23 @@
+package io.github.douglasliebl.library.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LoanBatchItemDTO {
+
+    public enum Status { CREATED, RETURNED, NOT_FOUND, ALREADY_LOANED, ALREADY_RETURNED, DUPLICATE }
+
+    private String isbn;
+
+    private Long loanId;
+
+    private Status status;
+}
@@ -0,0 +1,27 @@
+package io.github.douglasliebl.library.api.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes the {@code content} array shared by the page envelopes, mapping each row to its DTO just
+ * before it is serialized.
+ */
+final class MappedRows {
+
+    private MappedRows() {
+    }
+
+    static <E> void write(List<E> rows, Function<E, ?> mapper,
+                          JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeArrayFieldStart("content");
+        for (E row : rows) {
+            provider.defaultSerializeValue(mapper.apply(row), generator);
+        }
+        generator.writeEndArray();
+    }
+}
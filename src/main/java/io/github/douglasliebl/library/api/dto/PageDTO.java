@@ -0,0 +1,78 @@
+package io.github.douglasliebl.library.api.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compact page envelope, {@code {"content": [...], "page": {"number", "size", "totalElements", "totalPages"}}},
+ * the stable format Spring Data recommends over serializing {@code PageImpl} and its {@code Pageable}
+ * and {@code Sort} graph. The rows are mapped one at a time while the JSON is generated, so no list of
+ * DTOs is built for the page.
+ */
+@Getter
+@JsonSerialize(using = PageDTO.Serializer.class)
+public final class PageDTO<E> {
+
+    private final List<E> content;
+    @Getter(AccessLevel.NONE)
+    private final Function<E, ?> mapper;
+    private final int number;
+    private final int size;
+    private final long totalElements;
+
+    private PageDTO(List<E> content, Function<E, ?> mapper, int number, int size, long totalElements) {
+        this.content = content;
+        this.mapper = mapper;
+        this.number = number;
+        this.size = size;
+        this.totalElements = totalElements;
+    }
+
+    public static <E> PageDTO<E> of(Page<E> page, Function<E, ?> mapper) {
+        return of(page, mapper, page.getTotalElements());
+    }
+
+    public static <E> PageDTO<E> of(Slice<E> slice, Function<E, ?> mapper, long totalElements) {
+        return new PageDTO<>(slice.getContent(), mapper, slice.getNumber(), slice.getSize(), totalElements);
+    }
+
+    public int getTotalPages() {
+        return size == 0 ? 1 : (int) Math.ceil((double) totalElements / size);
+    }
+
+    static class Serializer extends StdSerializer<PageDTO<?>> {
+
+        @SuppressWarnings("unchecked")
+        Serializer() {
+            super((Class<PageDTO<?>>) (Class<?>) PageDTO.class);
+        }
+
+        @Override
+        public void serialize(PageDTO<?> page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            writeRows(page, generator, provider);
+
+            generator.writeObjectFieldStart("page");
+            generator.writeNumberField("number", page.getNumber());
+            generator.writeNumberField("size", page.getSize());
+            generator.writeNumberField("totalElements", page.getTotalElements());
+            generator.writeNumberField("totalPages", page.getTotalPages());
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        private static <E> void writeRows(PageDTO<E> page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            MappedRows.write(page.getContent(), page.mapper, generator, provider);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.douglasliebl.library.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReturnedLoanBatchDTO {
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<Long> ids;
+}
@@ -0,0 +1,63 @@
+package io.github.douglasliebl.library.api.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page envelope without a total, {@code {"content": [...], "number", "size", "hasNext"}}. Like
+ * {@link PageDTO}, the rows are mapped while the JSON is generated.
+ */
+@Getter
+@JsonSerialize(using = SliceDTO.Serializer.class)
+public final class SliceDTO<E> {
+
+    private final List<E> content;
+    @Getter(AccessLevel.NONE)
+    private final Function<E, ?> mapper;
+    private final int number;
+    private final int size;
+    private final boolean hasNext;
+
+    private SliceDTO(List<E> content, Function<E, ?> mapper, int number, int size, boolean hasNext) {
+        this.content = content;
+        this.mapper = mapper;
+        this.number = number;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    public static <E> SliceDTO<E> of(Slice<E> slice, Function<E, ?> mapper) {
+        return new SliceDTO<>(slice.getContent(), mapper, slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+
+    static class Serializer extends StdSerializer<SliceDTO<?>> {
+
+        @SuppressWarnings("unchecked")
+        Serializer() {
+            super((Class<SliceDTO<?>>) (Class<?>) SliceDTO.class);
+        }
+
+        @Override
+        public void serialize(SliceDTO<?> slice, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            writeRows(slice, generator, provider);
+            generator.writeNumberField("number", slice.getNumber());
+            generator.writeNumberField("size", slice.getSize());
+            generator.writeBooleanField("hasNext", slice.isHasNext());
+            generator.writeEndObject();
+        }
+
+        private static <E> void writeRows(SliceDTO<E> slice, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            MappedRows.write(slice.getContent(), slice.mapper, generator, provider);
+        }
+    }
+}
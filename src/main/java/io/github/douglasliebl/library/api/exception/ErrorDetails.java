@@ -1,6 +1,7 @@
 package io.github.douglasliebl.library.api.exception;
 
 import lombok.Getter;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -23,6 +24,10 @@ public class ErrorDetails {
         this.errors = Collections.singletonList(e.getMessage());
     }
 
+    public ErrorDetails(OptimisticLockingFailureException e) {
+        this.errors = Collections.singletonList(e.getMessage());
+    }
+
     public ErrorDetails(ResponseStatusException e) {
         this.errors = Collections.singletonList(e.getReason());
     }
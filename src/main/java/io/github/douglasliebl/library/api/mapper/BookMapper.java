@@ -0,0 +1,33 @@
+package io.github.douglasliebl.library.api.mapper;
+
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.model.entity.Book;
+
+public class BookMapper {
+
+    public BookDTO toDto(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .version(book.getVersion())
+                .build();
+    }
+
+    public Book toEntity(BookDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        return Book.builder()
+                .id(dto.getId())
+                .title(dto.getTitle())
+                .author(dto.getAuthor())
+                .isbn(dto.getIsbn())
+                .version(dto.getVersion())
+                .build();
+    }
+}
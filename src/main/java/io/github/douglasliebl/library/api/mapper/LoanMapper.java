@@ -0,0 +1,26 @@
+package io.github.douglasliebl.library.api.mapper;
+
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.LoanDTO;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class LoanMapper {
+
+    private final BookMapper bookMapper;
+
+    public LoanDTO toDto(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        BookDTO book = bookMapper.toDto(loan.getBook());
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomer())
+                .email(loan.getEmail())
+                .isbn(book != null ? book.getIsbn() : null)
+                .book(book)
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.douglasliebl.library.api.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times the background jobs: a {@code library.job} timer per job and outcome, and a
+ * {@code library.job.last.duration} gauge with how long the latest run of each job took.
+ */
+@Component
+@RequiredArgsConstructor
+public class JobMetrics {
+
+    private static final String JOB_TIMER = "library.job";
+    private static final String LAST_DURATION_GAUGE = "library.job.last.duration";
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicLong> lastDurations = new ConcurrentHashMap<>();
+
+    public void record(String job, Runnable run) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            run.run();
+            outcome = "success";
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            registry.timer(JOB_TIMER, "job", job, "outcome", outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            lastDurations.computeIfAbsent(job, this::lastDurationGauge).set(elapsed);
+        }
+    }
+
+    private AtomicLong lastDurationGauge(String job) {
+        AtomicLong lastDuration = new AtomicLong();
+        TimeGauge.builder(LAST_DURATION_GAUGE, lastDuration, TimeUnit.NANOSECONDS, AtomicLong::doubleValue)
+                .tag("job", job)
+                .register(registry);
+        return lastDuration;
+    }
+}
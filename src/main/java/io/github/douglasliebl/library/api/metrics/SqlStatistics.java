@@ -0,0 +1,103 @@
+package io.github.douglasliebl.library.api.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.SessionEventListener;
+import org.hibernate.type.Type;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What Hibernate did on behalf of one request: the JDBC statements it executed (a batch counts once),
+ * the entities it loaded and the time spent executing them. {@link SqlStatisticsFilter} opens a scope
+ * around each request and the Hibernate hooks below add to the scope of the calling thread, so work
+ * handed to other threads, such as the streamed exports, is not counted.
+ */
+public final class SqlStatistics {
+
+    public static final String REQUEST_ATTRIBUTE = SqlStatistics.class.getName();
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong entities = new AtomicLong();
+    private final AtomicLong jdbcNanos = new AtomicLong();
+
+    static SqlStatistics open() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    public long getStatements() {
+        return statements.get();
+    }
+
+    public long getEntities() {
+        return entities.get();
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + entities + " entities, " + jdbcNanos.get() / 1_000_000 + " ms in JDBC";
+    }
+
+    /**
+     * Registered for every session through {@code hibernate.session.events.auto}, which creates one
+     * instance per session.
+     */
+    public static class SessionListener implements SessionEventListener {
+
+        private long executeStart;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            executeStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            executed();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            executeStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            executed();
+        }
+
+        private void executed() {
+            SqlStatistics statistics = CURRENT.get();
+            if (statistics != null) {
+                statistics.statements.incrementAndGet();
+                statistics.jdbcNanos.addAndGet(System.nanoTime() - executeStart);
+            }
+        }
+    }
+
+    /**
+     * Counts the entities Hibernate materializes, including the ones a lazy association pulls in.
+     */
+    public static class LoadInterceptor implements Interceptor {
+
+        @Override
+        public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+            SqlStatistics statistics = CURRENT.get();
+            if (statistics != null) {
+                statistics.entities.incrementAndGet();
+            }
+            return false;
+        }
+    }
+}
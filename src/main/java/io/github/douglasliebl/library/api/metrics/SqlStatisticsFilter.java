@@ -0,0 +1,134 @@
+package io.github.douglasliebl.library.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL work of each request into {@link SqlStatistics} and records it as the
+ * {@code library.sql.statements} and {@code library.sql.entities} summaries and the
+ * {@code library.sql.time} timer, tagged by method and uri. A request above the statement threshold is
+ * logged as a likely N+1. With headers enabled the counts are also returned as {@code X-Sql-*} headers;
+ * they are written when the body starts, so they leave out what the serializer loads lazily.
+ */
+@Slf4j
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String ENTITIES_HEADER = "X-Sql-Entities";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final MeterRegistry registry;
+    private final boolean headers;
+    private final long warnStatements;
+
+    public SqlStatisticsFilter(MeterRegistry registry, boolean headers, long warnStatements) {
+        this.registry = registry;
+        this.headers = headers;
+        this.warnStatements = warnStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.open();
+        request.setAttribute(SqlStatistics.REQUEST_ATTRIBUTE, statistics);
+        StatisticsResponse wrapped = new StatisticsResponse(response, statistics);
+        try {
+            chain.doFilter(request, headers ? wrapped : response);
+        } finally {
+            SqlStatistics.close();
+            if (headers && !response.isCommitted()) {
+                wrapped.writeHeaders();
+            }
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+
+        DistributionSummary.builder("library.sql.statements").baseUnit("statements").tags(tags).register(registry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("library.sql.entities").baseUnit("entities").tags(tags).register(registry)
+                .record(statistics.getEntities());
+        registry.timer("library.sql.time", tags).record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (warnStatements > 0 && statistics.getStatements() > warnStatements) {
+            log.warn("{} {} ran {}, check it for N+1 queries", request.getMethod(), uri, statistics);
+        }
+    }
+
+    private static final class StatisticsResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatistics statistics;
+        private boolean written;
+
+        StatisticsResponse(HttpServletResponse response, SqlStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        void writeHeaders() {
+            if (written) {
+                return;
+            }
+            written = true;
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.setHeader(STATEMENTS_HEADER, Long.toString(statistics.getStatements()));
+            response.setHeader(ENTITIES_HEADER, Long.toString(statistics.getEntities()));
+            response.setHeader(TIME_HEADER, Long.toString(TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos())));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
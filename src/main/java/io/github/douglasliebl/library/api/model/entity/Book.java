@@ -3,7 +3,9 @@ package io.github.douglasliebl.library.api.model.entity;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Getter
@@ -16,13 +18,28 @@ import java.util.List;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_id_sequence")
+    @SequenceGenerator(name = "book_id_sequence", sequenceName = "tb_books_id_seq", allocationSize = 50)
     private Long id;
 
     private String title;
     private String author;
     private String isbn;
 
+    /**
+     * Id of the open loan of this book, null while it is available. Only written by the conditional
+     * updates of {@code BookRepository}, so saving a stale book never overwrites it.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long activeLoanId;
+
+    @Version
+    private Long version;
+
+    /** Set on every write through the entity; the search index refreshes the books changed since its last run. */
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "book", fetch = FetchType.LAZY)
     @JsonBackReference
     private List<Loan> loans;
@@ -1,5 +1,6 @@
 package io.github.douglasliebl.library.api.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
@@ -16,7 +17,8 @@ import java.time.LocalDate;
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_id_sequence")
+    @SequenceGenerator(name = "loan_id_sequence", sequenceName = "tb_loan_id_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -25,8 +27,13 @@ public class Loan {
     @Column
     private String email;
 
+    /** Non-negative hash of the e-mail, computed by the database; the late-loan job partitions on it. */
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Long emailHash;
+
     @JoinColumn(name = "book_id")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonManagedReference
     private Book book;
 
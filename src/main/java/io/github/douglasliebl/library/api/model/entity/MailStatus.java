@@ -0,0 +1,5 @@
+package io.github.douglasliebl.library.api.model.entity;
+
+public enum MailStatus {
+    PENDING, SENDING, SENT, FAILED
+}
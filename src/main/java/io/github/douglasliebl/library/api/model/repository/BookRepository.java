@@ -1,16 +1,97 @@
 package io.github.douglasliebl.library.api.model.repository;
 
 import io.github.douglasliebl.library.api.model.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
-
-    boolean existsByIsbn(String isbn);
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
     Optional<Book> findByIsbn(String isbn);
 
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    Slice<Book> findByIdGreaterThan(Long afterId, Pageable pageRequest);
+
+    Slice<Book> findByUpdatedAtGreaterThanEqual(LocalDateTime since, Pageable pageRequest);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    boolean existsByIdAndActiveLoanIdIsNotNull(Long id);
+
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Updates a book only if it still has the expected version, bumping it; returns 0 otherwise.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Book b set b.title = :title, b.author = :author, b.version = b.version + 1, b.updatedAt = :updatedAt " +
+            "where b.id = :id and b.version = :version")
+    int updateIfVersion(@Param("id") Long id,
+                        @Param("title") String title,
+                        @Param("author") String author,
+                        @Param("version") long version,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Every book in id order, read through a forward-only cursor for exports.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    @Query("select b.id from Book b where b.id > :afterId order by b.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageRequest);
+
+    @Query("select b.id from Book b where b.id > :afterId and b.activeLoanId is not null order by b.id")
+    List<Long> findLoanedIdsAfter(@Param("afterId") Long afterId, Pageable pageRequest);
+
+    @Query("select b.id from Book b where b.id in :ids and b.activeLoanId is not null")
+    Set<Long> findLoanedIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Sets the active-loan marker of an available book, or of a book already marked with this loan.
+     * Returns 0 when the book is loaned to another loan; the row lock of the update serializes
+     * concurrent checkouts of the same book.
+     */
+    @Modifying
+    @Query("update Book b set b.activeLoanId = :loanId where b.id = :bookId and (b.activeLoanId is null or b.activeLoanId = :loanId)")
+    int markLoaned(@Param("bookId") Long bookId, @Param("loanId") Long loanId);
+
+    /**
+     * Sets the active-loan marker of the book of each of these new loans in one statement, skipping the
+     * books already loaned. Returns the number of books marked, so fewer than the loans means another
+     * checkout took one of them.
+     */
+    @Modifying
+    @Query("update Book b set b.activeLoanId = (select l.id from Loan l where l.book.id = b.id and l.id in :loanIds) " +
+            "where b.activeLoanId is null and b.id in (select l.book.id from Loan l where l.id in :loanIds)")
+    int markLoaned(@Param("loanIds") Collection<Long> loanIds);
+
+    @Modifying
+    @Query("update Book b set b.activeLoanId = null where b.activeLoanId in :loanIds")
+    int markReturned(@Param("loanIds") Collection<Long> loanIds);
+
 }
@@ -0,0 +1,11 @@
+package io.github.douglasliebl.library.api.model.repository;
+
+import io.github.douglasliebl.library.api.model.entity.Book;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface BookRepositoryCustom {
+
+    Slice<Book> findSlice(Example<Book> example, Pageable pageRequest);
+}
@@ -0,0 +1,52 @@
+package io.github.douglasliebl.library.api.model.repository;
+
+import io.github.douglasliebl.library.api.model.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Same query as {@code findAll(Example, Pageable)} without the count: one extra row is fetched
+     * to tell whether a next page exists.
+     */
+    @Override
+    public Slice<Book> findSlice(Example<Book> example, Pageable pageRequest) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = builder.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, builder, example);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageRequest.getSort(), root, builder));
+
+        TypedQuery<Book> typedQuery = entityManager.createQuery(query);
+        if (pageRequest.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList(), pageRequest, false);
+        }
+        typedQuery.setFirstResult((int) pageRequest.getOffset());
+        typedQuery.setMaxResults(pageRequest.getPageSize() + 1);
+
+        List<Book> content = typedQuery.getResultList();
+        boolean hasNext = content.size() > pageRequest.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageRequest.getPageSize()) : content, pageRequest, hasNext);
+    }
+}
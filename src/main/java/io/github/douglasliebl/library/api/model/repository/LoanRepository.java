@@ -2,22 +2,68 @@ package io.github.douglasliebl.library.api.model.repository;
 
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
-    boolean existsByBookAndReturnedIsFalseOrReturnedIsNull(Book book);
-
+    @EntityGraph(attributePaths = "book")
     Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest);
 
+    @EntityGraph(attributePaths = "book")
     Page<Loan> findByBook(Book book, Pageable pageRequest);
 
-    List<Loan> findByLoanDateLessThanAndReturnedIsFalseOrReturnedIsNull(LocalDate threeDaysAgo);
+    @EntityGraph(attributePaths = "book")
+    Slice<Loan> findSliceByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest);
+
+    @EntityGraph(attributePaths = "book")
+    Slice<Loan> findSliceByBook(Book book, Pageable pageRequest);
+
+    long countByBookIsbnOrCustomer(String isbn, String customer);
+
+    long countByBook(Book book);
+
+    @EntityGraph(attributePaths = "book")
+    Slice<Loan> findByIdGreaterThan(Long afterId, Pageable pageRequest);
+
+    @EntityGraph(attributePaths = "book")
+    @Query("select l from Loan l where (l.book.isbn = :isbn or l.customer = :customer) and l.id > :afterId")
+    Slice<Loan> findByBookIsbnOrCustomerAfter(@Param("isbn") String isbn,
+                                              @Param("customer") String customer,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageRequest);
+
+    @EntityGraph(attributePaths = "book")
+    Slice<Loan> findByBookAndIdGreaterThan(Book book, Long afterId, Pageable pageRequest);
+
+    /**
+     * Every loan with its book, in id order, read through a forward-only cursor for exports.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select l from Loan l join fetch l.book order by l.id")
+    Stream<Loan> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select l.email from Loan l where l.loanDate < :date and (l.returned = false or l.returned is null) " +
+            "and l.email is not null and mod(l.emailHash, :partitions) = :partition order by l.email")
+    Stream<String> streamLateLoanEmails(@Param("date") LocalDate date,
+                                        @Param("partition") int partition,
+                                        @Param("partitions") int partitions);
 }
@@ -0,0 +1,50 @@
+package io.github.douglasliebl.library.api.model.repository;
+
+import io.github.douglasliebl.library.api.model.entity.MailOutbox;
+import io.github.douglasliebl.library.api.model.entity.MailStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    /**
+     * Locks the next mails due for delivery: pending mails whose backoff has elapsed and mails whose
+     * sending lease expired with their worker. Rows locked by another worker are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("select m from MailOutbox m where (m.status = PENDING and m.nextAttemptAt <= :now) " +
+            "or (m.status = SENDING and m.lockedUntil < :now) order by m.nextAttemptAt")
+    List<MailOutbox> findDue(@Param("now") LocalDateTime now, Pageable pageRequest);
+
+    @Modifying
+    @Query("update MailOutbox m set m.status = SENT, m.sentAt = :sentAt, m.lockedUntil = null where m.id = :id")
+    int markSent(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("update MailOutbox m set m.status = :status, m.nextAttemptAt = :nextAttemptAt, m.lastError = :error, " +
+            "m.lockedUntil = null where m.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") MailStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    @Modifying
+    @Query("delete from MailOutbox m where m.status = SENT and m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    long countByStatus(MailStatus status);
+}
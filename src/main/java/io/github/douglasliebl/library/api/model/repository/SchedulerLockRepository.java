@@ -0,0 +1,40 @@
+package io.github.douglasliebl.library.api.model.repository;
+
+import io.github.douglasliebl.library.api.model.entity.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Creates the lock row the first time a lock is taken. Fails with a constraint violation when the
+     * row already exists, which callers treat as a lost race.
+     */
+    @Modifying
+    @Query(value = "insert into tb_scheduler_lock(name, locked_until, locked_at, locked_by) " +
+            "values (:name, :lockedUntil, :lockedAt, :lockedBy)", nativeQuery = true)
+    int insert(@Param("name") String name,
+               @Param("lockedUntil") LocalDateTime lockedUntil,
+               @Param("lockedAt") LocalDateTime lockedAt,
+               @Param("lockedBy") String lockedBy);
+
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :lockedUntil, l.lockedAt = :lockedAt, l.lockedBy = :lockedBy " +
+            "where l.name = :name and l.lockedUntil <= :lockedAt")
+    int acquire(@Param("name") String name,
+                @Param("lockedUntil") LocalDateTime lockedUntil,
+                @Param("lockedAt") LocalDateTime lockedAt,
+                @Param("lockedBy") String lockedBy);
+
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :lockedUntil where l.name = :name and l.lockedBy = :lockedBy")
+    int release(@Param("name") String name,
+                @Param("lockedUntil") LocalDateTime lockedUntil,
+                @Param("lockedBy") String lockedBy);
+}
@@ -0,0 +1,158 @@
+package io.github.douglasliebl.library.api.reactive;
+
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.PageDTO;
+import io.github.douglasliebl.library.api.exception.ErrorDetails;
+import io.github.douglasliebl.library.api.mapper.BookMapper;
+import io.github.douglasliebl.library.api.mapper.LoanMapper;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.service.BookService;
+import io.github.douglasliebl.library.api.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Non-blocking variant of the catalog read endpoints of {@code BookController}, served under
+ * {@code /api/reactive/books}. The JPA services are blocking, so every call runs on a bounded
+ * scheduler sized to the connection pool; the event loop only parses requests and writes responses,
+ * and slow clients cost no thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookReactiveHandler {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 2000;
+
+    private final BookService bookService;
+    private final LoanService loanService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+    private final Scheduler reactiveBlockingScheduler;
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/reactive/books", deferred(this::find))
+                .GET("/api/reactive/books/{id}", deferred(this::getBook))
+                .GET("/api/reactive/books/{id}/loans", deferred(this::loansByBook))
+                .onError(ResponseStatusException.class, (e, request) ->
+                        ServerResponse.status(e.getStatusCode()).bodyValue(new ErrorDetails(e)))
+                .build();
+    }
+
+    public Mono<ServerResponse> find(ServerRequest request) {
+        Pageable pageRequest = pageRequest(request);
+        Optional<String> q = request.queryParam("q").filter(StringUtils::hasText);
+        BookDTO fields = BookDTO.builder()
+                .title(request.queryParam("title").orElse(null))
+                .author(request.queryParam("author").orElse(null))
+                .isbn(request.queryParam("isbn").orElse(null))
+                .build();
+        if (q.isPresent() && (fields.getTitle() != null || fields.getAuthor() != null || fields.getIsbn() != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Filters are not supported with q search");
+        }
+        Book filter = bookMapper.toEntity(fields);
+
+        return respond(blocking(() -> {
+            Page<Book> result = q.isPresent()
+                    ? bookService.search(q.get(), pageRequest)
+                    : bookService.find(filter, pageRequest);
+            return Optional.of(mapped(result, bookMapper::toDto));
+        }));
+    }
+
+    public Mono<ServerResponse> getBook(ServerRequest request) {
+        Long id = pathId(request);
+        return respond(blocking(() -> bookService.getById(id).map(bookMapper::toDto)));
+    }
+
+    public Mono<ServerResponse> loansByBook(ServerRequest request) {
+        Long id = pathId(request);
+        Pageable pageRequest = pageRequest(request);
+        return respond(blocking(() -> bookService.getById(id)
+                .map(book -> mapped(loanService.getLoansByBook(book, pageRequest), loanMapper::toDto))));
+    }
+
+    /**
+     * Turns the parameter errors a handler throws while building its response into errors of the
+     * returned {@code Mono}, so the error handler of {@link #routes()} answers them.
+     */
+    private static HandlerFunction<ServerResponse> deferred(HandlerFunction<ServerResponse> handler) {
+        return request -> Mono.defer(() -> handler.handle(request));
+    }
+
+    /**
+     * Maps the rows on the blocking scheduler, so no entity is touched on the event loop.
+     */
+    private static <E, D> PageDTO<D> mapped(Page<E> page, Function<E, D> mapper) {
+        return PageDTO.of(page.map(mapper), Function.identity());
+    }
+
+    private <T> Mono<Optional<T>> blocking(Callable<Optional<T>> call) {
+        return Mono.fromCallable(call).subscribeOn(reactiveBlockingScheduler);
+    }
+
+    private static <T> Mono<ServerResponse> respond(Mono<Optional<T>> result) {
+        return result
+                .flatMap(body -> body
+                        .map(value -> ServerResponse.ok().bodyValue(value))
+                        .orElseGet(() -> ServerResponse.notFound().build()))
+                .onErrorResume(RejectedExecutionException.class,
+                        e -> ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    private static Long pathId(ServerRequest request) {
+        try {
+            return Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid id");
+        }
+    }
+
+    /**
+     * Reads {@code page}, {@code size} and any number of {@code sort=property[,asc|desc]} parameters,
+     * the same way Spring Data binds a {@code Pageable} on the MVC endpoints.
+     */
+    static Pageable pageRequest(ServerRequest request) {
+        try {
+            int page = request.queryParam("page").map(Integer::parseInt).orElse(0);
+            int size = request.queryParam("size").map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE);
+            if (page < 0 || size < 1) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page request");
+            }
+
+            List<Sort.Order> orders = new ArrayList<>();
+            for (String sort : request.queryParams().getOrDefault("sort", List.of())) {
+                String[] parts = sort.split(",");
+                Sort.Direction direction = parts.length > 1
+                        ? Sort.Direction.fromOptionalString(parts[1]).orElse(Sort.Direction.ASC)
+                        : Sort.Direction.ASC;
+                orders.add(new Sort.Order(direction, parts[0]));
+            }
+            return PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), Sort.by(orders));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page request");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.douglasliebl.library.api.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Serves the reactive catalog routes on their own Reactor Netty server, next to the servlet container
+ * that keeps serving the rest of the API, on {@code app.reactive.port}. It is off unless
+ * {@code app.reactive.enabled} is set, so a default deployment only listens on the servlet port.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogServer implements SmartLifecycle {
+
+    // Same threshold as server.compression.min-response-size on the servlet side.
+    private static final int COMPRESSION_MIN_RESPONSE_SIZE = 2048;
+
+    private final HttpHandler httpHandler;
+    private final int port;
+    private DisposableServer server;
+
+    public ReactiveCatalogServer(BookReactiveHandler handler,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.reactive.port:8081}") int port) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        this.httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+        this.port = port;
+    }
+
+    @Override
+    public void start() {
+        server = HttpServer.create()
+                .port(port)
+                .compress(COMPRESSION_MIN_RESPONSE_SIZE)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("reactive catalog API listening on port {}", server.port());
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    public int getPort() {
+        return server == null ? port : server.port();
+    }
+}
@@ -2,26 +2,32 @@ package io.github.douglasliebl.library.api.resource;
 
 import io.github.douglasliebl.library.api.dto.BookDTO;
 import io.github.douglasliebl.library.api.dto.BookUpdateDTO;
-import io.github.douglasliebl.library.api.dto.LoanDTO;
+import io.github.douglasliebl.library.api.mapper.BookMapper;
+import io.github.douglasliebl.library.api.mapper.LoanMapper;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.service.BookImportService;
 import io.github.douglasliebl.library.api.service.BookService;
+import io.github.douglasliebl.library.api.service.ExportService;
 import io.github.douglasliebl.library.api.service.LoanService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
@@ -29,25 +35,75 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BookController {
 
+    private static final int MAX_AVAILABILITY_IDS = 1000;
+    private static final int UNCONDITIONAL_UPDATE_ATTEMPTS = 3;
+
     private final BookService bookService;
-    private final ModelMapper mapper;
+    private final BookImportService bookImportService;
+    private final ExportService exportService;
     private final LoanService loanService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
 
     @PostMapping
     @Operation(summary = "Create Book")
     public ResponseEntity createBook(@RequestBody @Valid BookDTO request) {
         log.info("creating a book for isbn: {}", request.getIsbn());
-        var book = mapper.map(bookService.save(mapper.map(request, Book.class)), BookDTO.class);
-        return ResponseEntity.status(HttpStatus.CREATED).body(book);
+        var book = bookMapper.toDto(bookService.save(bookMapper.toEntity(request)));
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.of(book.getVersion())).body(book);
+    }
+
+    @PostMapping(value = "import", consumes = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Bulk import books from a NDJSON or CSV (title,author,isbn) stream")
+    public ResponseEntity importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                      InputStream body) throws IOException {
+        var format = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? BookImportService.Format.CSV
+                : BookImportService.Format.NDJSON;
+        log.info("importing books from a {} stream", format);
+        return ResponseEntity.status(HttpStatus.OK).body(bookImportService.importBooks(body, format));
+    }
+
+    @GetMapping(value = "export", produces = {Exports.NDJSON, Exports.CSV})
+    @Operation(summary = "Stream every book as NDJSON or CSV (id,title,author,isbn)")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = Exports.NDJSON) String accept) {
+        return Exports.stream(accept, "books", exportService::exportBooks);
+    }
+
+    @GetMapping("availability")
+    @Operation(summary = "Tell which of the given book ids are available, on loan or unknown")
+    public ResponseEntity availability(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_AVAILABILITY_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_AVAILABILITY_IDS + " ids are supported");
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(bookService.getAvailability(ids));
     }
 
     @GetMapping("{id}")
-    @Operation(summary = "Find a book based on id")
-    public ResponseEntity getBook(@PathVariable Long id) {
+    @Operation(summary = "Find a book based on id, or answer 304 when If-None-Match holds its current ETag")
+    public ResponseEntity getBook(@PathVariable Long id,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("obtaining details for book id: {}", id);
-        var book = mapper.map(bookService.getById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)), BookDTO.class);
-        return ResponseEntity.status(HttpStatus.OK).body(book);
+        Long currentVersion = null;
+        if (ifNoneMatch != null) {
+            // Only the version is read, so a client holding the current copy costs no load or serialization.
+            currentVersion = bookService.getVersion(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            var etag = ETags.of(currentVersion);
+            if (ETags.noneMatch(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        var cached = bookService.getById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (currentVersion != null && !currentVersion.equals(cached.getVersion())) {
+            // The cache is behind the version just read, e.g. after a write on another replica.
+            cached = bookService.reload(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }
+        var book = bookMapper.toDto(cached);
+        return ResponseEntity.status(HttpStatus.OK).eTag(ETags.of(book.getVersion())).body(book);
     }
 
     @DeleteMapping("{id}")
@@ -60,44 +116,99 @@ public class BookController {
     }
 
     @PutMapping("{id}")
-    @Operation(summary = "Updates a book")
+    @Operation(summary = "Updates a book, only if it still matches the If-Match ETag when one is sent")
     public ResponseEntity updateBook(@PathVariable Long id,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                      @RequestBody BookUpdateDTO request) {
         log.info("updating book with id: {}", id);
-        var actualBook = bookService.getById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        var updatedBook = bookService.update(actualBook, request);
-        return ResponseEntity.status(HttpStatus.OK).body(updatedBook);
+        BookDTO updatedBook;
+        if (ifMatch == null || ETags.isAny(ifMatch)) {
+            updatedBook = updateUnconditionally(id, request);
+        } else {
+            var actualBook = bookService.getById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            updatedBook = bookService.update(actualBook, request, ETags.version(ifMatch));
+        }
+        return ResponseEntity.status(HttpStatus.OK).eTag(ETags.of(updatedBook.getVersion())).body(updatedBook);
+    }
+
+    /**
+     * Overwrites the current row, so it reads the book fresh rather than from the cache. A write landing
+     * between that read and the save is no failed precondition, since the client sent none: the update is
+     * retried on the new version, and only a book that keeps changing is reported as a 409 conflict.
+     */
+    private BookDTO updateUnconditionally(Long id, BookUpdateDTO request) {
+        for (int attempt = 1; ; attempt++) {
+            var actualBook = bookService.reload(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            try {
+                return bookService.update(actualBook, request);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == UNCONDITIONAL_UPDATE_ATTEMPTS) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Book is being modified by other requests, try again.");
+                }
+            }
+        }
     }
 
     @GetMapping
-    @Operation(summary = "Get all books")
-    public ResponseEntity find(BookDTO book, Pageable pageRequest) {
-        var result = bookService.find(mapper.map(book, Book.class), pageRequest);
-        List<BookDTO> response = result
-                .stream()
-                .map(entity -> mapper.map(entity, BookDTO.class))
-                .collect(Collectors.toList());
-        PageImpl<BookDTO> pagedResponse = new PageImpl<>(response, pageRequest, result.getTotalElements());
-
-        return ResponseEntity.status(HttpStatus.OK).body(pagedResponse);
+    @Operation(summary = "Get all books, or rank them by relevance to the q search terms")
+    public ResponseEntity find(BookDTO book,
+                               @RequestParam(required = false) String q,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(required = false) String count,
+                               Pageable pageRequest) {
+        if (cursor != null) {
+            if (StringUtils.hasText(q) || book.getTitle() != null || book.getAuthor() != null || book.getIsbn() != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Filters are not supported with cursor pagination");
+            }
+            var slice = bookService.findAfter(Cursors.decode(cursor), pageRequest.getPageSize());
+            return ResponseEntity.status(HttpStatus.OK).body(Cursors.page(slice, bookMapper::toDto, Book::getId));
+        }
+
+        if (StringUtils.hasText(q) && (book.getTitle() != null || book.getAuthor() != null || book.getIsbn() != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Filters are not supported with q search");
+        }
+        if (!StringUtils.hasText(q)) {
+            Book filter = bookMapper.toEntity(book);
+            switch (CountMode.from(count)) {
+                case NONE:
+                    return Pages.slice(bookService.findSlice(filter, pageRequest), bookMapper::toDto);
+                case ESTIMATED:
+                    return Pages.estimated(bookService.findSlice(filter, pageRequest), bookMapper::toDto,
+                            pageRequest, bookService.estimateCount(filter));
+                default:
+                    break;
+            }
+        }
+
+        var result = StringUtils.hasText(q)
+                ? bookService.search(q, pageRequest)
+                : bookService.find(bookMapper.toEntity(book), pageRequest);
+        return Pages.page(result, bookMapper::toDto);
     }
 
     @GetMapping("{id}/loans")
-    public ResponseEntity loansByBook(@PathVariable Long id, Pageable pageRequest) {
+    public ResponseEntity loansByBook(@PathVariable Long id,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) String count,
+                                      Pageable pageRequest) {
         var book = bookService.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result = loanService.getLoansByBook(book, pageRequest);
-        List<LoanDTO> response = result.stream()
-                .map(entity -> {
-                    BookDTO loanedBook = mapper.map(entity.getBook(), BookDTO.class);
-                    LoanDTO loan = mapper.map(entity, LoanDTO.class);
-                    loan.setBook(loanedBook);
-                    return loan;
-                })
-                .collect(Collectors.toList());
-        PageImpl<LoanDTO> pagedResponse = new PageImpl<>(response, pageRequest, result.getTotalElements());
-
-        return ResponseEntity.status(HttpStatus.OK).body(pagedResponse);
+        if (cursor != null) {
+            var slice = loanService.getLoansByBookAfter(book, Cursors.decode(cursor), pageRequest.getPageSize());
+            return ResponseEntity.status(HttpStatus.OK).body(Cursors.page(slice, loanMapper::toDto, Loan::getId));
+        }
+        switch (CountMode.from(count)) {
+            case NONE:
+                return Pages.slice(loanService.getLoansByBookSlice(book, pageRequest), loanMapper::toDto);
+            case ESTIMATED:
+                return Pages.estimated(loanService.getLoansByBookSlice(book, pageRequest), loanMapper::toDto,
+                        pageRequest, loanService.estimateCountByBook(book));
+            default:
+                break;
+        }
+
+        return Pages.page(loanService.getLoansByBook(book, pageRequest), loanMapper::toDto);
     }
 }
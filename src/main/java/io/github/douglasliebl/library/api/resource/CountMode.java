@@ -0,0 +1,25 @@
+package io.github.douglasliebl.library.api.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * How a listing endpoint obtains its total: an exact {@code count(*)}, none at all (a slice with
+ * {@code hasNext}), or a cached estimate.
+ */
+enum CountMode {
+    EXACT, NONE, ESTIMATED;
+
+    static CountMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid count mode");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.douglasliebl.library.api.resource;
+
+import io.github.douglasliebl.library.api.dto.CursorPageDTO;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes the last id of a keyset page into the opaque token clients send back as {@code cursor}.
+ * An empty cursor starts from the beginning.
+ */
+final class Cursors {
+
+    static final long FIRST = 0L;
+    private static final String PREFIX = "id:";
+
+    private Cursors() {
+    }
+
+    static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    static <E> CursorPageDTO<E> page(Slice<E> slice, Function<E, ?> mapper, Function<E, Long> idOf) {
+        List<E> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+                ? encode(idOf.apply(content.get(content.size() - 1)))
+                : null;
+        return CursorPageDTO.of(slice, mapper, next);
+    }
+}
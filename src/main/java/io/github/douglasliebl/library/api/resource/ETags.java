@@ -0,0 +1,60 @@
+package io.github.douglasliebl.library.api.resource;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Strong entity tags built from the optimistic-lock version of a resource, and the matching rules of
+ * {@code If-None-Match} (weak comparison) and {@code If-Match} (strong comparison).
+ */
+final class ETags {
+
+    static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static boolean isAny(String header) {
+        return header != null && ANY.equals(header.trim());
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the current tag, in which case a GET is answered
+     * with 304.
+     */
+    static boolean noneMatch(String ifNoneMatch, String etag) {
+        if (isAny(ifNoneMatch)) {
+            return true;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_PREFIX)) {
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the version an {@code If-Match} header expects. Weak or malformed tags can never match
+     * strongly, so they fail the precondition right away.
+     */
+    static long version(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // falls through to the failed precondition
+            }
+        }
+        throw new OptimisticLockingFailureException("Book was modified by another request.");
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.douglasliebl.library.api.resource;
+
+import io.github.douglasliebl.library.api.service.ExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+final class Exports {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    private Exports() {
+    }
+
+    interface Exporter {
+        void export(OutputStream output, ExportService.Format format) throws IOException;
+    }
+
+    /**
+     * Streams the export in the format the client accepts, CSV only when asked for explicitly.
+     */
+    static ResponseEntity<StreamingResponseBody> stream(String accept, String name, Exporter exporter) {
+        boolean csv = MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> !type.isWildcardType() && type.isCompatibleWith(MediaType.parseMediaType(CSV)));
+        ExportService.Format format = csv ? ExportService.Format.CSV : ExportService.Format.NDJSON;
+        String filename = name + (csv ? ".csv" : ".ndjson");
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.parseMediaType(csv ? CSV : NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(output -> exporter.export(output, format));
+    }
+}
@@ -1,26 +1,28 @@
 package io.github.douglasliebl.library.api.resource;
 
-import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.LoanBatchDTO;
 import io.github.douglasliebl.library.api.dto.LoanDTO;
 import io.github.douglasliebl.library.api.dto.LoanFilterDTO;
+import io.github.douglasliebl.library.api.dto.ReturnedLoanBatchDTO;
 import io.github.douglasliebl.library.api.dto.ReturnedLoanDTO;
+import io.github.douglasliebl.library.api.mapper.LoanMapper;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
 import io.github.douglasliebl.library.api.service.BookService;
+import io.github.douglasliebl.library.api.service.ExportService;
 import io.github.douglasliebl.library.api.service.LoanService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.HashSet;
 
 @RestController
 @RequestMapping("/api/loans")
@@ -29,7 +31,8 @@ public class LoanController {
 
     private final LoanService loanservice;
     private final BookService bookservice;
-    private final ModelMapper mapper;
+    private final LoanMapper loanMapper;
+    private final ExportService exportService;
 
     @PostMapping
     public ResponseEntity createLoan(@RequestBody LoanDTO request) {
@@ -45,6 +48,19 @@ public class LoanController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("batch")
+    public ResponseEntity createLoans(@RequestBody @Valid LoanBatchDTO request) {
+        var booksByIsbn = bookservice.getBooksByIsbns(new HashSet<>(request.getIsbns()));
+        var response = loanservice.saveAll(request, booksByIsbn);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+    @PatchMapping("batch")
+    public ResponseEntity returnedBooks(@RequestBody @Valid ReturnedLoanBatchDTO request) {
+        var response = loanservice.returnAll(request.getIds());
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
     @PatchMapping("{id}")
     public void returnedBook(@PathVariable Long id,
                              @RequestBody ReturnedLoanDTO request) {
@@ -54,20 +70,31 @@ public class LoanController {
         loanservice.update(response);
     }
 
+    @GetMapping(value = "export", produces = {Exports.NDJSON, Exports.CSV})
+    public ResponseEntity<StreamingResponseBody> exportLoans(
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = Exports.NDJSON) String accept) {
+        return Exports.stream(accept, "loans", exportService::exportLoans);
+    }
+
     @GetMapping
-    public ResponseEntity find(LoanFilterDTO request, Pageable pageRequest) {
-        Page<Loan> result = loanservice.find(request, pageRequest);
-        List<LoanDTO> response = result.stream()
-                .map(entity -> {
-                    BookDTO book = mapper.map(entity.getBook(), BookDTO.class);
-                    LoanDTO loan = mapper.map(entity, LoanDTO.class);
-                    loan.setIsbn(book.getIsbn());
-                    loan.setBook(book);
-                    return loan;
-                })
-                .collect(Collectors.toList());
-        PageImpl<LoanDTO> pagedResponse = new PageImpl<>(response, pageRequest, result.getTotalElements());
+    public ResponseEntity find(LoanFilterDTO request,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(required = false) String count,
+                               Pageable pageRequest) {
+        if (cursor != null) {
+            var slice = loanservice.findAfter(request, Cursors.decode(cursor), pageRequest.getPageSize());
+            return ResponseEntity.status(HttpStatus.OK).body(Cursors.page(slice, loanMapper::toDto, Loan::getId));
+        }
+        switch (CountMode.from(count)) {
+            case NONE:
+                return Pages.slice(loanservice.findSlice(request, pageRequest), loanMapper::toDto);
+            case ESTIMATED:
+                return Pages.estimated(loanservice.findSlice(request, pageRequest), loanMapper::toDto,
+                        pageRequest, loanservice.estimateCount(request));
+            default:
+                break;
+        }
 
-        return ResponseEntity.status(HttpStatus.OK).body(pagedResponse);
+        return Pages.page(loanservice.find(request, pageRequest), loanMapper::toDto);
     }
 }
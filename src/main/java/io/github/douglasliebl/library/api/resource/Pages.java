@@ -0,0 +1,36 @@
+package io.github.douglasliebl.library.api.resource;
+
+import io.github.douglasliebl.library.api.dto.PageDTO;
+import io.github.douglasliebl.library.api.dto.SliceDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Function;
+
+final class Pages {
+
+    static final String ESTIMATED_TOTAL_HEADER = "X-Total-Count-Estimated";
+
+    private Pages() {
+    }
+
+    static <E> ResponseEntity<SliceDTO<E>> slice(Slice<E> slice, Function<E, ?> mapper) {
+        return ResponseEntity.status(HttpStatus.OK).body(SliceDTO.of(slice, mapper));
+    }
+
+    static <E> ResponseEntity<PageDTO<E>> page(Page<E> page, Function<E, ?> mapper) {
+        return ResponseEntity.status(HttpStatus.OK).body(PageDTO.of(page, mapper));
+    }
+
+    static <E> ResponseEntity<PageDTO<E>> estimated(Slice<E> slice, Function<E, ?> mapper,
+                                                    Pageable pageRequest, long estimatedTotal) {
+        // A stale estimate must not contradict what this page has already seen.
+        long seen = pageRequest.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return ResponseEntity.status(HttpStatus.OK)
+                .header(ESTIMATED_TOTAL_HEADER, "true")
+                .body(PageDTO.of(slice, mapper, Math.max(estimatedTotal, seen)));
+    }
+}
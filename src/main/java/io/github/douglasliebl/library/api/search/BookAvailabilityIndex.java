@@ -0,0 +1,163 @@
+package io.github.douglasliebl.library.api.search;
+
+import io.github.douglasliebl.library.api.dto.BookAvailabilityDTO;
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory availability of every book, as two compressed bitmaps of book ids: the books of the
+ * catalog and the books on loan. It is rebuilt from the active-loan markers of {@code tb_books} when
+ * the application starts and then periodically, to pick up the loans made by other replicas, and kept
+ * current by {@code BookServiceImpl} and {@code LoanServiceImpl} after every committed write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookAvailabilityIndex {
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final BookRepository repository;
+    private final JobMetrics jobMetrics;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Roaring64Bitmap books = new Roaring64Bitmap();
+    private Roaring64Bitmap loaned = new Roaring64Bitmap();
+    // The changes made since the running reload started reading, null while none runs.
+    private List<BiConsumer<Roaring64Bitmap, Roaring64Bitmap>> pendingChanges;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.books.availability.refresh-interval:PT5M}",
+            fixedDelayString = "${app.books.availability.refresh-interval:PT5M}")
+    public void rebuild() {
+        jobMetrics.record("availability-index", this::reload);
+    }
+
+    /**
+     * Checkouts and returns that land while the bitmaps are read are recorded and applied to the new
+     * bitmaps before they replace the current ones, so none of them is lost by the swap.
+     */
+    private synchronized void reload() {
+        setPendingChanges(new ArrayList<>());
+        Roaring64Bitmap newBooks;
+        Roaring64Bitmap newLoaned;
+        try {
+            newBooks = load(repository::findIdsAfter);
+            newLoaned = load(repository::findLoanedIdsAfter);
+        } catch (RuntimeException e) {
+            setPendingChanges(null);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(change -> change.accept(newBooks, newLoaned));
+            pendingChanges = null;
+            books = newBooks;
+            loaned = newLoaned;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("book availability index built with {} books, {} on loan, in {} bytes",
+                newBooks.getLongCardinality(), newLoaned.getLongCardinality(),
+                newBooks.getLongSizeInBytes() + newLoaned.getLongSizeInBytes());
+    }
+
+    private void setPendingChanges(List<BiConsumer<Roaring64Bitmap, Roaring64Bitmap>> changes) {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Roaring64Bitmap load(BiFunction<Long, PageRequest, List<Long>> idsAfter) {
+        Roaring64Bitmap bitmap = new Roaring64Bitmap();
+        List<Long> page;
+        long lastId = 0L;
+        do {
+            page = idsAfter.apply(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (Long id : page) {
+                bitmap.addLong(id);
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1);
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    public void add(Long bookId) {
+        update((books, loaned) -> books.addLong(bookId));
+    }
+
+    public void remove(Long bookId) {
+        update((books, loaned) -> {
+            books.removeLong(bookId);
+            loaned.removeLong(bookId);
+        });
+    }
+
+    public void markLoaned(Long bookId) {
+        update((books, loaned) -> loaned.addLong(bookId));
+    }
+
+    public void markAvailable(Long bookId) {
+        update((books, loaned) -> loaned.removeLong(bookId));
+    }
+
+    private void update(BiConsumer<Roaring64Bitmap, Roaring64Bitmap> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(books, loaned);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Splits the given ids into available, loaned and unknown books, keeping their order.
+     */
+    public BookAvailabilityDTO availability(Collection<Long> ids) {
+        List<Long> available = new ArrayList<>();
+        List<Long> onLoan = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                if (!books.contains(id)) {
+                    notFound.add(id);
+                } else if (loaned.contains(id)) {
+                    onLoan.add(id);
+                } else {
+                    available.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return BookAvailabilityDTO.builder().available(available).loaned(onLoan).notFound(notFound).build();
+    }
+}
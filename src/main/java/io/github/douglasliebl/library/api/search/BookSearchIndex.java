@@ -0,0 +1,283 @@
+package io.github.douglasliebl.library.api.search;
+
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over book titles and authors. It is built from the database when the
+ * application starts, kept current by {@code BookServiceImpl} on every write, and periodically refreshed
+ * with the books written since the last refresh, which picks up the writes of other replicas without
+ * reading the whole table again. Writes that land while a build or refresh reads the table are replayed
+ * after what it read, so a stale row never overwrites them. Books deleted on another replica stay in the
+ * index until the next start; the search drops them when it loads the rows.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final double PREFIX_MATCH_FACTOR = 0.5;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final BookRepository repository;
+    private final JobMetrics jobMetrics;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Terms indexed = new Terms();
+
+    // Covers writes committed late, and the clock skew between replicas, since updated_at comes from the writer.
+    @Value("${app.books.search.refresh-overlap:PT1M}")
+    private Duration refreshOverlap = Duration.ofMinutes(1);
+
+    // The writes made since the running build or refresh started reading, null while none runs.
+    private List<Consumer<Terms>> pendingWrites;
+    // The latest updated_at read so far; null until a build read a book, and the next refresh builds again.
+    private LocalDateTime refreshedUpTo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        jobMetrics.record("search-index", this::build);
+    }
+
+    @Scheduled(initialDelayString = "${app.books.search.refresh-interval:PT5M}",
+            fixedDelayString = "${app.books.search.refresh-interval:PT5M}")
+    public void refresh() {
+        jobMetrics.record("search-index-refresh", this::refreshChanged);
+    }
+
+    private synchronized void build() {
+        update(current -> {
+            current.clear();
+            pendingWrites = new ArrayList<>();
+        });
+        refreshedUpTo = null;
+        try {
+            Slice<Book> page;
+            long lastId = 0L;
+            do {
+                page = repository.findByIdGreaterThan(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id")));
+                apply(page);
+                if (page.hasContent()) {
+                    lastId = page.getContent().get(page.getNumberOfElements() - 1).getId();
+                }
+            } while (page.hasNext());
+        } finally {
+            update(current -> pendingWrites = null);
+        }
+        log.info("book search index built with {} books and {} terms", size(), terms());
+    }
+
+    private synchronized void refreshChanged() {
+        if (refreshedUpTo == null) {
+            build();
+            return;
+        }
+        LocalDateTime since = refreshedUpTo.minus(refreshOverlap);
+        update(current -> pendingWrites = new ArrayList<>());
+        long read = 0;
+        try {
+            Slice<Book> page;
+            int number = 0;
+            do {
+                page = repository.findByUpdatedAtGreaterThanEqual(since,
+                        PageRequest.of(number++, REBUILD_PAGE_SIZE, Sort.by("updatedAt", "id")));
+                apply(page);
+                read += page.getNumberOfElements();
+            } while (page.hasNext());
+        } finally {
+            update(current -> pendingWrites = null);
+        }
+        log.debug("book search index refreshed with {} books written since {}", read, since);
+    }
+
+    /**
+     * Indexes a page read from the table, then replays the writes made since the reading started on top
+     * of it: they are newer than anything the page may hold.
+     */
+    private void apply(Slice<Book> page) {
+        update(current -> {
+            for (Book book : page) {
+                current.remove(book.getId());
+                current.add(book);
+                if (book.getUpdatedAt() != null && (refreshedUpTo == null || book.getUpdatedAt().isAfter(refreshedUpTo))) {
+                    refreshedUpTo = book.getUpdatedAt();
+                }
+            }
+            pendingWrites.forEach(write -> write.accept(current));
+        });
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        write(current -> {
+            current.remove(book.getId());
+            current.add(book);
+        });
+    }
+
+    public void remove(Long id) {
+        write(current -> current.remove(id));
+    }
+
+    private void write(Consumer<Terms> write) {
+        update(current -> {
+            write.accept(current);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        });
+    }
+
+    private void update(Consumer<Terms> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the books matching every term of the query, best match first. A query term
+     * matches an indexed term exactly or as its prefix, the latter with a lower score.
+     */
+    public List<Long> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documents = indexed.documentTerms.size();
+            Map<Long, Double> scores = null;
+            for (String term : new LinkedHashSet<>(terms)) {
+                Map<Long, Double> termScores = scoreTerm(term, documents);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexed.documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int terms() {
+        lock.readLock().lock();
+        try {
+            return indexed.postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private Map<Long, Double> scoreTerm(String term, int documents) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> entry : indexed.postings.tailMap(term, true).entrySet()) {
+            if (!entry.getKey().startsWith(term)) {
+                break;
+            }
+            double factor = entry.getKey().equals(term) ? 1.0 : PREFIX_MATCH_FACTOR;
+            double idf = Math.log(1.0 + (double) documents / entry.getValue().size());
+            entry.getValue().forEach((id, frequency) ->
+                    scores.merge(id, factor * frequency * idf, Double::sum));
+        }
+        return scores;
+    }
+
+    private static final class Terms {
+
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+
+        void add(Book book) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            tokenize(book.getTitle()).forEach(term -> frequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+            tokenize(book.getAuthor()).forEach(term -> frequencies.merge(term, AUTHOR_WEIGHT, Integer::sum));
+
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new HashMap<>()).put(book.getId(), frequency));
+            documentTerms.put(book.getId(), frequencies.keySet());
+        }
+
+        void clear() {
+            postings.clear();
+            documentTerms.clear();
+        }
+
+        void remove(Long id) {
+            Set<String> removed = documentTerms.remove(id);
+            if (removed == null) {
+                return;
+            }
+            for (String term : removed) {
+                Map<Long, Integer> documents = postings.get(term);
+                if (documents != null) {
+                    documents.remove(id);
+                    if (documents.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+}
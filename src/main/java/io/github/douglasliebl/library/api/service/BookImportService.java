@@ -0,0 +1,13 @@
+package io.github.douglasliebl.library.api.service;
+
+import io.github.douglasliebl.library.api.dto.BookImportReportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+
+    enum Format { NDJSON, CSV }
+
+    BookImportReportDTO importBooks(InputStream input, Format format) throws IOException;
+}
@@ -1,11 +1,15 @@
 package io.github.douglasliebl.library.api.service;
 
+import io.github.douglasliebl.library.api.dto.BookAvailabilityDTO;
 import io.github.douglasliebl.library.api.dto.BookDTO;
 import io.github.douglasliebl.library.api.dto.BookUpdateDTO;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface BookService {
@@ -14,11 +18,29 @@ public interface BookService {
 
     Optional<Book> getById(Long id);
 
+    Optional<Book> reload(Long id);
+
     void delete(Book book);
 
     BookDTO update(Book actualBook, BookUpdateDTO request);
 
+    BookDTO update(Book actualBook, BookUpdateDTO request, long expectedVersion);
+
+    Optional<Long> getVersion(Long id);
+
     Page<Book> find(Book filter, Pageable PageRequest);
 
     Optional<Book> getBookByIsbn(String isbn);
+
+    Map<String, Book> getBooksByIsbns(Collection<String> isbns);
+
+    Page<Book> search(String query, Pageable pageRequest);
+
+    BookAvailabilityDTO getAvailability(Collection<Long> ids);
+
+    Slice<Book> findAfter(Long afterId, int size);
+
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    long estimateCount(Book filter);
 }
@@ -1,8 +1,6 @@
 package io.github.douglasliebl.library.api.service;
 
-import java.util.List;
-
 public interface EmailService {
 
-    void sendMail(String message, List<String> mailsList);
+    void sendMail(String message, String recipient);
 }
@@ -0,0 +1,13 @@
+package io.github.douglasliebl.library.api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    enum Format { NDJSON, CSV }
+
+    void exportBooks(OutputStream output, Format format) throws IOException;
+
+    void exportLoans(OutputStream output, Format format) throws IOException;
+}
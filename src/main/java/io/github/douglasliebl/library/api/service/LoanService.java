@@ -1,13 +1,18 @@
 package io.github.douglasliebl.library.api.service;
 
+import io.github.douglasliebl.library.api.dto.LoanBatchDTO;
+import io.github.douglasliebl.library.api.dto.LoanBatchItemDTO;
 import io.github.douglasliebl.library.api.dto.LoanFilterDTO;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface LoanService {
     Loan save(Loan request);
@@ -16,9 +21,29 @@ public interface LoanService {
 
     Loan update(Loan response);
 
+    List<LoanBatchItemDTO> saveAll(LoanBatchDTO request, Map<String, Book> booksByIsbn);
+
+    List<LoanBatchItemDTO> returnAll(List<Long> ids);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
 
     Page<Loan> getLoansByBook(Book book, Pageable pageRequest);
 
-    List<Loan> getAllLateLoans();
+    Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable);
+
+    Slice<Loan> getLoansByBookSlice(Book book, Pageable pageRequest);
+
+    long estimateCount(LoanFilterDTO filter);
+
+    long estimateCountByBook(Book book);
+
+    Slice<Loan> findAfter(LoanFilterDTO filter, Long afterId, int size);
+
+    Slice<Loan> getLoansByBookAfter(Book book, Long afterId, int size);
+
+    /**
+     * Streams the e-mail of every late loan in the given partition of loan ids, ordered so that repeated
+     * recipients are adjacent. Must be consumed inside a transaction and closed afterwards.
+     */
+    Stream<String> streamLateLoanEmails(int partition, int partitions);
 }
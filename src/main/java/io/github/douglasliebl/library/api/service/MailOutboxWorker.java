@@ -0,0 +1,184 @@
+package io.github.douglasliebl.library.api.service;
+
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.github.douglasliebl.library.api.model.entity.MailOutbox;
+import io.github.douglasliebl.library.api.model.entity.MailStatus;
+import io.github.douglasliebl.library.api.model.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Delivers the mails queued in the outbox. Each poll claims a batch of due mails under a lease, sends
+ * them on a bounded pool and records the outcome per mail; failed mails are retried with exponential
+ * backoff until {@code app.mail.outbox.max-attempts} is reached. Sent mails are purged once they are
+ * older than {@code app.mail.outbox.retention}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MailOutboxWorker {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final String MAILS_COUNTER = "library.mails";
+    private static final String DELIVERY_TIMER = "library.mail.delivery";
+
+    @Value("${app.mail.default-mailSender}")
+    private String mailSender;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.mail.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${app.mail.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${app.mail.outbox.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${app.mail.outbox.retention:P7D}")
+    private Duration retention;
+
+    private final MailOutboxRepository repository;
+    private final JavaMailSender javaMailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadFactory workerThreadFactory;
+    private final MeterRegistry meterRegistry;
+    private final JobMetrics jobMetrics;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(parallelism, workerThreadFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:PT10S}")
+    public void drain() {
+        jobMetrics.record("mail-outbox", () -> {
+            int delivered;
+            do {
+                delivered = drainOnce();
+            } while (delivered == batchSize);
+        });
+    }
+
+    /**
+     * Deletes the sent mails older than the retention, so the outbox does not grow with every mail ever
+     * sent. Running it on several replicas at once is harmless.
+     */
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        jobMetrics.record("mail-outbox-purge", () -> {
+            int purged = transactionTemplate.execute(status ->
+                    repository.deleteSentBefore(LocalDateTime.now().minus(retention)));
+            log.info("mail outbox: purged {} sent mails", purged);
+        });
+    }
+
+    /**
+     * Claims and delivers one batch of due mails, returning how many were claimed.
+     */
+    public int drainOnce() {
+        List<MailOutbox> claimed = transactionTemplate.execute(status -> claim());
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        CompletableFuture.allOf(claimed.stream()
+                        .map(mail -> CompletableFuture.runAsync(() -> deliver(mail), executor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+        log.info("mail outbox: delivered a batch of {} mails", claimed.size());
+        return claimed.size();
+    }
+
+    private List<MailOutbox> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<MailOutbox> due = repository.findDue(now, PageRequest.of(0, batchSize));
+        for (MailOutbox mail : due) {
+            mail.setStatus(MailStatus.SENDING);
+            mail.setAttempts(mail.getAttempts() + 1);
+            mail.setLockedUntil(now.plus(lease));
+        }
+        return due;
+    }
+
+    /**
+     * Sends one mail, timing the SMTP call and counting the outcome: sent, failed (to be retried) or
+     * exhausted (given up after the last attempt). Any runtime failure counts as a failed attempt, so a
+     * single bad mail neither aborts its batch nor sits in SENDING until its lease expires.
+     */
+    private void deliver(MailOutbox mail) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            SimpleMailMessage mailMessage = new SimpleMailMessage();
+            mailMessage.setFrom(mailSender);
+            mailMessage.setSubject(mail.getSubject());
+            mailMessage.setText(mail.getBody());
+            mailMessage.setTo(mail.getRecipient());
+            javaMailSender.send(mailMessage);
+            record(sample, "sent");
+
+            transactionTemplate.executeWithoutResult(status -> repository.markSent(mail.getId(), LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            boolean exhausted = mail.getAttempts() >= maxAttempts;
+            record(sample, exhausted ? "exhausted" : "failed");
+            log.warn("mail outbox: attempt {} to {} failed{}: {}", mail.getAttempts(), mail.getRecipient(),
+                    exhausted ? ", giving up" : "", e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> repository.markFailed(
+                    mail.getId(),
+                    exhausted ? MailStatus.FAILED : MailStatus.PENDING,
+                    LocalDateTime.now().plus(backoff(mail.getAttempts())),
+                    truncate(e.getMessage())));
+        }
+    }
+
+    private void record(Timer.Sample sample, String outcome) {
+        sample.stop(meterRegistry.timer(DELIVERY_TIMER, "outcome", outcome));
+        meterRegistry.counter(MAILS_COUNTER, "outcome", outcome).increment();
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
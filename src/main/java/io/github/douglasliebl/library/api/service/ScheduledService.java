@@ -1,32 +1,125 @@
 package io.github.douglasliebl.library.api.service;
 
-import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduledService {
 
     private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
+    private static final String LATE_LOANS_LOCK = "late-loans-p";
+    private static final Duration NEXT_RUN_MARGIN = Duration.ofMinutes(1);
+
     @Value("${app.mail.late-loans.message}")
     private String message;
 
+    @Value("${app.mail.late-loans.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.mail.late-loans.partitions:1}")
+    private int partitions;
+
+    @Value("${app.mail.late-loans.lock-at-most-for:PT1H}")
+    private Duration lockAtMostFor;
+
     private final LoanService loanService;
     private final EmailService emailService;
+    private final SchedulerLockService lockService;
+    private final PlatformTransactionManager transactionManager;
+    private final JobMetrics jobMetrics;
+
+    private Clock clock = Clock.systemDefaultZone();
 
+    /**
+     * Every replica fires this job, but each partition of the late loans is locked by the first replica
+     * to reach it, so every loan is handled once and the partitions are spread over the replicas. A
+     * partition stays locked until just before the next run once it is done, so a slower replica moving
+     * on to it afterwards skips it instead of mailing its customers again.
+     */
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(Loan::getEmail)
-                .toList();
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime nextRun = CronExpression.parse(CRON_LATE_LOANS).next(now);
+        Duration untilNextRun = Duration.between(now, nextRun).minus(NEXT_RUN_MARGIN);
+        for (int partition = 0; partition < partitions; partition++) {
+            int current = partition;
+            lockService.runLocked(LATE_LOANS_LOCK + partition, lockAtMostFor, untilNextRun,
+                    () -> jobMetrics.record("late-loans", () -> sendMailToLateLoans(current)));
+        }
+    }
 
-        emailService.sendMail(message, mailsList);
+    /**
+     * Streams the late loans of one partition in a read-only transaction and queues one mail per customer
+     * in the outbox, committing every chunk in a transaction of its own: a failure late in the run keeps
+     * the mails already queued, and they are never held in memory all together.
+     */
+    private void sendMailToLateLoans(int partition) {
+        long start = System.nanoTime();
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+
+        Long queued = readTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<String> emails = loanService.streamLateLoanEmails(partition, partitions)) {
+                List<String> chunk = new ArrayList<>(chunkSize);
+                String previous = null;
+                Iterator<String> iterator = emails.iterator();
+                while (iterator.hasNext()) {
+                    String email = iterator.next();
+                    if (Objects.equals(email, previous)) {
+                        continue;
+                    }
+                    previous = email;
+                    chunk.add(email);
+                    if (chunk.size() == chunkSize) {
+                        count += queue(chunk);
+                        logProgress(partition, count, start);
+                    }
+                }
+                count += queue(chunk);
+            }
+            return count;
+        });
+
+        log.info("late-loan job partition {} finished in {} ms", partition,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logProgress(partition, queued == null ? 0 : queued, start);
+    }
+
+    private int queue(List<String> chunk) {
+        int size = chunk.size();
+        if (size > 0) {
+            TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+            chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            chunkTransaction.executeWithoutResult(status -> chunk.forEach(email -> emailService.sendMail(message, email)));
+            chunk.clear();
+        }
+        return size;
+    }
 
+    private static void logProgress(int partition, long queued, long start) {
+        double seconds = Math.max(System.nanoTime() - start, 1L) / 1_000_000_000.0;
+        log.info("late-loan job partition {}: {} mails queued, {} mails/s",
+                partition, queued, String.format("%.1f", queued / seconds));
     }
 }
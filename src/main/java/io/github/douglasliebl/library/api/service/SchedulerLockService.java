@@ -0,0 +1,15 @@
+package io.github.douglasliebl.library.api.service;
+
+import java.time.Duration;
+
+public interface SchedulerLockService {
+
+    /**
+     * Runs the task only if no other replica holds the named lock. The lock is held for at most
+     * {@code lockAtMostFor}, in case this replica dies, and at least {@code lockAtLeastFor}, so replicas
+     * firing a little later on the same schedule skip the run instead of repeating it.
+     *
+     * @return whether the task ran on this replica
+     */
+    boolean runLocked(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task);
+}
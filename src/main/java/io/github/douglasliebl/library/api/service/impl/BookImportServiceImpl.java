@@ -0,0 +1,249 @@
+package io.github.douglasliebl.library.api.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.douglasliebl.library.api.config.MetricsConfig;
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.BookImportErrorDTO;
+import io.github.douglasliebl.library.api.dto.BookImportReportDTO;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
+import io.github.douglasliebl.library.api.search.BookSearchIndex;
+import io.github.douglasliebl.library.api.service.BookImportService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@RequiredArgsConstructor
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final List<String> CSV_HEADER = List.of("title", "author", "isbn");
+
+    @Value("${app.books.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.books.import.max-errors:1000}")
+    private int maxErrors;
+
+    private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final BookAvailabilityIndex availabilityIndex;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Override
+    public BookImportReportDTO importBooks(InputStream input, Format format) throws IOException {
+        BookImportReportDTO report = new BookImportReportDTO();
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && lineNumber == 1 && isCsvHeader(line)) {
+                continue;
+            }
+
+            BookDTO book;
+            try {
+                book = format == Format.CSV ? parseCsv(line) : parseJson(line);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                reject(report, lineNumber, null, "Malformed line");
+                continue;
+            }
+
+            Set<ConstraintViolation<BookDTO>> violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                reject(report, lineNumber, book.getIsbn(), message);
+                continue;
+            }
+
+            chunk.add(new ImportLine(lineNumber, book));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        log.info("book import finished: {} imported, {} rejected", report.getImported(), report.getRejected());
+        return report;
+    }
+
+    private void importChunk(List<ImportLine> chunk, BookImportReportDTO report) {
+        Set<String> existing = repository.findExistingIsbns(
+                chunk.stream().map(line -> line.book().getIsbn()).collect(Collectors.toSet()));
+
+        Set<String> seen = new HashSet<>();
+        List<ImportLine> accepted = new ArrayList<>(chunk.size());
+        for (ImportLine line : chunk) {
+            String isbn = line.book().getIsbn();
+            if (existing.contains(isbn)) {
+                reject(report, line.number(), isbn, "Isbn already exists.");
+            } else if (!seen.add(isbn)) {
+                reject(report, line.number(), isbn, "Duplicated isbn in import.");
+            } else {
+                accepted.add(line);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<Book> books = accepted.stream().map(line -> toEntity(line.book())).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Flushing through the repository translates a constraint violation into the
+                // DataIntegrityViolationException handled below.
+                repository.saveAllAndFlush(books);
+                entityManager.clear();
+            });
+            books.forEach(book -> {
+                searchIndex.index(book);
+                availabilityIndex.add(book.getId());
+            });
+            report.setImported(report.getImported() + books.size());
+        } catch (DataIntegrityViolationException e) {
+            // Another writer inserted one of these isbns since the check: retry row by row.
+            importOneByOne(accepted, report);
+        }
+    }
+
+    private void importOneByOne(List<ImportLine> lines, BookImportReportDTO report) {
+        for (ImportLine line : lines) {
+            Book book = toEntity(line.book());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    repository.saveAndFlush(book);
+                    entityManager.clear();
+                });
+                searchIndex.index(book);
+                availabilityIndex.add(book.getId());
+                report.setImported(report.getImported() + 1);
+            } catch (DataIntegrityViolationException e) {
+                reject(report, line.number(), book.getIsbn(), "Isbn already exists.");
+            }
+        }
+    }
+
+    /**
+     * Counts every rejected line but only reports the first {@code app.books.import.max-errors} of them,
+     * so a bad file of millions of lines cannot fill the heap with its report.
+     */
+    private void reject(BookImportReportDTO report, long line, String isbn, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() >= maxErrors) {
+            return;
+        }
+        report.getErrors().add(BookImportErrorDTO.builder()
+                .line(line)
+                .isbn(isbn)
+                .message(message)
+                .build());
+    }
+
+    private static Book toEntity(BookDTO dto) {
+        return Book.builder()
+                .title(dto.getTitle())
+                .author(dto.getAuthor())
+                .isbn(dto.getIsbn())
+                .build();
+    }
+
+    /**
+     * Reads one NDJSON line, which must hold an object: {@code null} or a bare value is valid JSON but
+     * not a book.
+     */
+    private BookDTO parseJson(String line) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return objectMapper.treeToValue(node, BookDTO.class);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return parseCsvFields(line).stream()
+                .map(field -> field.trim().toLowerCase(Locale.ROOT))
+                .toList()
+                .equals(CSV_HEADER);
+    }
+
+    private static BookDTO parseCsv(String line) {
+        List<String> fields = parseCsvFields(line);
+        if (fields.size() != CSV_HEADER.size()) {
+            throw new IllegalArgumentException("Expected title,author,isbn");
+        }
+        return BookDTO.builder()
+                .title(fields.get(0).trim())
+                .author(fields.get(1).trim())
+                .isbn(fields.get(2).trim())
+                .build();
+    }
+
+    static List<String> parseCsvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record ImportLine(long number, BookDTO book) {
+    }
+}
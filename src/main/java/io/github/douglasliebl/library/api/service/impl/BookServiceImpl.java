@@ -1,78 +1,274 @@
 package io.github.douglasliebl.library.api.service.impl;
 
+import io.github.douglasliebl.library.api.config.CacheNames;
+import io.github.douglasliebl.library.api.config.MetricsConfig;
+import io.github.douglasliebl.library.api.dto.BookAvailabilityDTO;
 import io.github.douglasliebl.library.api.dto.BookDTO;
 import io.github.douglasliebl.library.api.dto.BookUpdateDTO;
 import io.github.douglasliebl.library.api.exception.BusinessException;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
+import io.github.douglasliebl.library.api.search.BookSearchIndex;
 import io.github.douglasliebl.library.api.service.BookService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
+    // ExampleMatcher is immutable, so the listings share one instead of building it per request.
+    private static final ExampleMatcher FILTER_MATCHER = ExampleMatcher
+            .matching()
+            .withIgnoreCase()
+            .withIgnoreNullValues()
+            .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING);
+
     private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final BookAvailabilityIndex availabilityIndex;
 
     @Override
+    @CacheEvict(cacheNames = CacheNames.BOOKS_BY_ISBN, key = "#request.isbn", condition = "#request.isbn != null")
     public Book save(Book request) {
-        if (repository.existsByIsbn(request.getIsbn())) {
+        Book savedBook;
+        try {
+            savedBook = repository.saveAndFlush(request);
+        } catch (DataIntegrityViolationException e) {
             throw new BusinessException("Isbn already exists.");
         }
-        return repository.save(request);
+        searchIndex.index(savedBook);
+        availabilityIndex.add(savedBook.getId());
+        return savedBook;
     }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.BOOKS, key = "#id", unless = "#result == null")
     public Optional<Book> getById(Long id) {
-        return repository.findById(id);
+        return repository.findById(id).map(BookServiceImpl::detachedCopy);
+    }
+
+    /**
+     * Reads the book past the cache and caches what it read, for callers that know the cached copy
+     * may be older than the row.
+     */
+    @Override
+    @CachePut(cacheNames = CacheNames.BOOKS, key = "#id", unless = "#result == null")
+    public Optional<Book> reload(Long id) {
+        return repository.findById(id).map(BookServiceImpl::detachedCopy);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.BOOKS, key = "#book.id"),
+            @CacheEvict(cacheNames = CacheNames.BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null")
+    })
     public void delete(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cannot be null");
         }
         repository.delete(book);
+        searchIndex.remove(book.getId());
+        availabilityIndex.remove(book.getId());
     }
 
+    /**
+     * The caches are evicted before the update, so a failed one cannot leave a stale entry behind, and
+     * again after it, so a read racing the update cannot cache the old row.
+     */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.BOOKS, key = "#actualBook.id", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheNames.BOOKS_BY_ISBN, key = "#actualBook.isbn", condition = "#actualBook.isbn != null",
+                    beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheNames.BOOKS, key = "#actualBook.id"),
+            @CacheEvict(cacheNames = CacheNames.BOOKS_BY_ISBN, key = "#actualBook.isbn", condition = "#actualBook.isbn != null")
+    })
     public BookDTO update(Book actualBook, BookUpdateDTO request) {
         if (request == null || actualBook.getId() == null) {
             throw new IllegalArgumentException("Update information or actual book id cannot be null");
         }
 
-        actualBook.setTitle(request.getTitle());
-        actualBook.setAuthor(request.getAuthor());
-        Book updatedBook = repository.save(actualBook);
+        // actualBook may be the cached instance, so the changes go on a copy.
+        Book changedBook = detachedCopy(actualBook);
+        changedBook.setTitle(request.getTitle());
+        changedBook.setAuthor(request.getAuthor());
+        Book updatedBook;
+        try {
+            updatedBook = repository.save(changedBook);
+        } catch (OptimisticLockingFailureException e) {
+            throw new OptimisticLockingFailureException("Book was modified by another request.", e);
+        }
+        searchIndex.index(updatedBook);
 
         return BookDTO.builder()
                 .id(updatedBook.getId())
                 .title(updatedBook.getTitle())
                 .author(updatedBook.getAuthor())
-                .isbn(updatedBook.getIsbn()).build();
+                .isbn(updatedBook.getIsbn())
+                .version(updatedBook.getVersion()).build();
     }
 
+    /**
+     * Lock-free conditional update: the row is only written if nobody changed it since the client read
+     * {@code expectedVersion}.
+     */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.BOOKS, key = "#actualBook.id", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheNames.BOOKS_BY_ISBN, key = "#actualBook.isbn", condition = "#actualBook.isbn != null",
+                    beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheNames.BOOKS, key = "#actualBook.id"),
+            @CacheEvict(cacheNames = CacheNames.BOOKS_BY_ISBN, key = "#actualBook.isbn", condition = "#actualBook.isbn != null")
+    })
+    public BookDTO update(Book actualBook, BookUpdateDTO request, long expectedVersion) {
+        if (request == null || actualBook.getId() == null) {
+            throw new IllegalArgumentException("Update information or actual book id cannot be null");
+        }
+
+        if (repository.updateIfVersion(actualBook.getId(), request.getTitle(), request.getAuthor(), expectedVersion,
+                LocalDateTime.now()) == 0) {
+            throw new OptimisticLockingFailureException("Book was modified by another request.");
+        }
+        Book updatedBook = Book.builder()
+                .id(actualBook.getId())
+                .title(request.getTitle())
+                .author(request.getAuthor())
+                .isbn(actualBook.getIsbn())
+                .version(expectedVersion + 1)
+                .build();
+        searchIndex.index(updatedBook);
+
+        return BookDTO.builder()
+                .id(updatedBook.getId())
+                .title(updatedBook.getTitle())
+                .author(updatedBook.getAuthor())
+                .isbn(updatedBook.getIsbn())
+                .version(updatedBook.getVersion()).build();
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageInfo) {
-        Example<Book> example = Example.of(filter,
-                ExampleMatcher
-                        .matching()
-                        .withIgnoreCase()
-                        .withIgnoreNullValues()
-                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+        return repository.findAll(toExample(filter), pageInfo);
+    }
 
-        return repository.findAll(example, pageInfo);
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        return repository.findSlice(toExample(filter), pageRequest);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.COUNT_ESTIMATES, key = "{'books', #filter.title, #filter.author, #filter.isbn}")
+    public long estimateCount(Book filter) {
+        if (filter.getTitle() == null && filter.getAuthor() == null && filter.getIsbn() == null) {
+            return searchIndex.size();
+        }
+        return repository.count(toExample(filter));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheNames.BOOKS_BY_ISBN, key = "#isbn", unless = "#result == null")
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        return repository.findByIsbn(isbn).map(BookServiceImpl::detachedCopy);
+    }
+
+    @Override
+    public Map<String, Book> getBooksByIsbns(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return repository.findByIsbnIn(isbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> search(String query, Pageable pageRequest) {
+        List<Long> rankedIds = searchIndex.search(query);
+        if (pageRequest.isUnpaged()) {
+            return new PageImpl<>(loadInOrder(rankedIds), pageRequest, rankedIds.size());
+        }
+
+        int from = (int) Math.min(pageRequest.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageRequest.getPageSize(), rankedIds.size());
+        return new PageImpl<>(loadInOrder(rankedIds.subList(from, to)), pageRequest, rankedIds.size());
+    }
+
+    @Override
+    public BookAvailabilityDTO getAvailability(Collection<Long> ids) {
+        return availabilityIndex.availability(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findAfter(Long afterId, int size) {
+        return repository.findByIdGreaterThan(afterId, PageRequest.of(0, size, Sort.by("id")));
+    }
+
+    /**
+     * The book caches hold these copies rather than the loaded entities, so no persistence context
+     * ever manages, lazy-loads into or flushes a shared instance.
+     */
+    private static Book detachedCopy(Book book) {
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .activeLoanId(book.getActiveLoanId())
+                .version(book.getVersion())
+                .updatedAt(book.getUpdatedAt())
+                .build();
+    }
+
+    private static Example<Book> toExample(Book filter) {
+        return Example.of(filter, FILTER_MATCHER);
+    }
+
+    private List<Book> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Book> books = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
@@ -1,33 +1,41 @@
 package io.github.douglasliebl.library.api.service.impl;
 
+import io.github.douglasliebl.library.api.config.MetricsConfig;
+import io.github.douglasliebl.library.api.model.entity.MailOutbox;
+import io.github.douglasliebl.library.api.model.entity.MailStatus;
+import io.github.douglasliebl.library.api.model.repository.MailOutboxRepository;
 import io.github.douglasliebl.library.api.service.EmailService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
+/**
+ * Queues mails in the outbox, within the caller's transaction when there is one. Delivery is done
+ * later by {@code MailOutboxWorker}, so callers never wait on the SMTP server.
+ */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    @Value("${app.mail.default-mailSender}")
-    private String mailSender;
+    private static final String SUBJECT = "Book delayed.";
 
-    private final JavaMailSender javaMailSender;
+    private final MailOutboxRepository repository;
 
     @Override
-    public void sendMail(String message, List<String> mailsList) {
-        String[] mails = mailsList.toArray(new String[mailsList.size()]);
-
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(mailSender);
-        mailMessage.setSubject("Book delayed.");
-        mailMessage.setText(message);
-        mailMessage.setTo(mails);
-
-        javaMailSender.send(mailMessage);
+    @Transactional
+    public void sendMail(String message, String recipient) {
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(MailOutbox.builder()
+                .recipient(recipient)
+                .subject(SUBJECT)
+                .body(message)
+                .status(MailStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
     }
 }
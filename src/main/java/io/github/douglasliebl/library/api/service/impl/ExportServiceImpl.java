@@ -0,0 +1,148 @@
+package io.github.douglasliebl.library.api.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.douglasliebl.library.api.config.MetricsConfig;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.model.repository.LoanRepository;
+import io.github.douglasliebl.library.api.service.ExportService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@RequiredArgsConstructor
+public class ExportServiceImpl implements ExportService {
+
+    private static final List<Column<Book>> BOOK_COLUMNS = List.of(
+            new Column<>("id", Book::getId),
+            new Column<>("title", Book::getTitle),
+            new Column<>("author", Book::getAuthor),
+            new Column<>("isbn", Book::getIsbn));
+
+    private static final List<Column<Loan>> LOAN_COLUMNS = List.of(
+            new Column<>("id", Loan::getId),
+            new Column<>("customer", Loan::getCustomer),
+            new Column<>("email", Loan::getEmail),
+            new Column<>("loanDate", Loan::getLoanDate),
+            new Column<>("returned", Loan::getReturned),
+            new Column<>("bookId", loan -> loan.getBook().getId()),
+            new Column<>("isbn", loan -> loan.getBook().getIsbn()),
+            new Column<>("title", loan -> loan.getBook().getTitle()),
+            new Column<>("author", loan -> loan.getBook().getAuthor()));
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(OutputStream output, Format format) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            export("book", books, BOOK_COLUMNS, entityManager::detach, output, format);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportLoans(OutputStream output, Format format) throws IOException {
+        try (Stream<Loan> loans = loanRepository.streamAll()) {
+            export("loan", loans, LOAN_COLUMNS, loan -> {
+                entityManager.detach(loan.getBook());
+                entityManager.detach(loan);
+            }, output, format);
+        }
+    }
+
+    /**
+     * Writes each row as soon as the cursor returns it and detaches it right after, so the persistence
+     * context and the heap stay flat however many rows the table has.
+     */
+    private <T> void export(String name, Stream<T> rows, List<Column<T>> columns, Consumer<T> detach,
+                            OutputStream output, Format format) throws IOException {
+        long start = System.nanoTime();
+        long exported = 0;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        JsonGenerator generator = null;
+        if (format == Format.CSV) {
+            writer.write(columns.stream().map(Column::name).collect(Collectors.joining(",")));
+            writer.write('\n');
+        } else {
+            generator = objectMapper.createGenerator(writer);
+        }
+
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            if (generator != null) {
+                writeJson(generator, row, columns);
+            } else {
+                writeCsv(writer, row, columns);
+            }
+            detach.accept(row);
+            exported++;
+        }
+
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+        log.info("{} export finished: {} rows as {} in {} ms", name, exported, format,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static <T> void writeJson(JsonGenerator generator, T row, List<Column<T>> columns) throws IOException {
+        generator.writeStartObject();
+        for (Column<T> column : columns) {
+            generator.writeFieldName(column.name());
+            generator.writeObject(column.value().apply(row));
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static <T> void writeCsv(Writer writer, T row, List<Column<T>> columns) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = columns.get(i).value().apply(row);
+            if (value != null) {
+                writer.write(csvField(value.toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    static String csvField(String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+}
@@ -1,31 +1,106 @@
 package io.github.douglasliebl.library.api.service.impl;
 
+import io.github.douglasliebl.library.api.config.CacheNames;
+import io.github.douglasliebl.library.api.config.MetricsConfig;
+import io.github.douglasliebl.library.api.dto.LoanBatchDTO;
+import io.github.douglasliebl.library.api.dto.LoanBatchItemDTO;
 import io.github.douglasliebl.library.api.dto.LoanFilterDTO;
 import io.github.douglasliebl.library.api.exception.BusinessException;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
 import io.github.douglasliebl.library.api.model.repository.LoanRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
 import io.github.douglasliebl.library.api.service.LoanService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class LoanServiceImpl implements LoanService {
 
+    private static final String LOANS_COUNTER = "library.loans";
+
     private final LoanRepository repository;
+    private final BookRepository bookRepository;
+    private final BookAvailabilityIndex availabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<Long> checkoutsInFlight = ConcurrentHashMap.newKeySet();
 
+    /**
+     * A checkout of a book already being checked out in this instance is rejected at once: the one in
+     * flight is about to loan the book, so waiting for it would only tie up a request thread to fail
+     * anyway. Checkouts of different books never hold each other up. Across instances the conditional update of the marker decides the winner, and the partial unique
+     * index on {@code tb_loan} backs it up; both are reported the same way.
+     */
     @Override
     public Loan save(Loan request) {
-        if (repository.existsByBookAndReturnedIsFalseOrReturnedIsNull(request.getBook())) throw new BusinessException("Book already loaned.");
+        Long bookId = request.getBook().getId();
+        if (!checkoutsInFlight.add(bookId)) {
+            throw new BusinessException("Book checkout in progress, try again.");
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                if (bookRepository.existsByIdAndActiveLoanIdIsNotNull(bookId)) throw new BusinessException("Book already loaned.");
+
+                Loan loan = repository.save(request);
+                if (bookRepository.markLoaned(bookId, loan.getId()) == 0) throw new BusinessException("Book already loaned.");
+                afterCommit(() -> {
+                    availabilityIndex.markLoaned(bookId);
+                    countLoans("created", 1);
+                });
+                return loan;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException("Book already loaned.");
+        } finally {
+            checkoutsInFlight.remove(bookId);
+        }
+    }
 
-        return repository.save(request);
+    /**
+     * Applies a change to the availability index once the current transaction commits, so a rolled
+     * back checkout never shows up as a loan.
+     */
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private void countLoans(String event, int loans) {
+        meterRegistry.counter(LOANS_COUNTER, "event", event).increment(loans);
     }
 
     @Override
@@ -35,23 +110,178 @@ public class LoanServiceImpl implements LoanService {
 
     @Override
     public Loan update(Loan response) {
-        return repository.save(response);
+        try {
+            return transactionTemplate.execute(status -> {
+                Loan loan = repository.save(response);
+                Long bookId = loan.getBook().getId();
+                if (Boolean.TRUE.equals(loan.getReturned())) {
+                    // Only the loan still holding its book's marker is being returned now; a loan returned
+                    // before clears nothing and is not counted again, as ALREADY_RETURNED in returnAll.
+                    if (bookRepository.markReturned(List.of(loan.getId())) > 0) {
+                        afterCommit(() -> {
+                            availabilityIndex.markAvailable(bookId);
+                            countLoans("returned", 1);
+                        });
+                    }
+                } else if (bookRepository.markLoaned(bookId, loan.getId()) == 0) {
+                    throw new BusinessException("Book already loaned.");
+                } else {
+                    afterCommit(() -> availabilityIndex.markLoaned(bookId));
+                }
+                return loan;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException("Book already loaned.");
+        }
     }
 
     @Override
+    @Transactional
+    public List<LoanBatchItemDTO> saveAll(LoanBatchDTO request, Map<String, Book> booksByIsbn) {
+        Set<Long> loanedBookIds = booksByIsbn.isEmpty()
+                ? Collections.emptySet()
+                : bookRepository.findLoanedIds(booksByIsbn.values().stream().map(Book::getId).toList());
+
+        Set<String> seen = new HashSet<>();
+        List<LoanBatchItemDTO> items = new ArrayList<>(request.getIsbns().size());
+        List<LoanBatchItemDTO> createdItems = new ArrayList<>();
+        List<Loan> loans = new ArrayList<>();
+        for (String isbn : request.getIsbns()) {
+            Book book = booksByIsbn.get(isbn);
+            LoanBatchItemDTO item = LoanBatchItemDTO.builder().isbn(isbn).build();
+            if (!seen.add(isbn)) {
+                item.setStatus(LoanBatchItemDTO.Status.DUPLICATE);
+            } else if (book == null) {
+                item.setStatus(LoanBatchItemDTO.Status.NOT_FOUND);
+            } else if (loanedBookIds.contains(book.getId())) {
+                item.setStatus(LoanBatchItemDTO.Status.ALREADY_LOANED);
+            } else {
+                item.setStatus(LoanBatchItemDTO.Status.CREATED);
+                createdItems.add(item);
+                loans.add(Loan.builder()
+                        .customer(request.getCustomer())
+                        .email(request.getEmail())
+                        .book(book)
+                        .loanDate(LocalDate.now())
+                        .build());
+            }
+            items.add(item);
+        }
+
+        try {
+            repository.saveAll(loans);
+            repository.flush();
+            // Another checkout took a book after findLoanedIds; the whole batch rolls back.
+            if (!loans.isEmpty() && bookRepository.markLoaned(loans.stream().map(Loan::getId).toList()) != loans.size()) {
+                throw new BusinessException("Book already loaned.");
+            }
+            afterCommit(() -> {
+                loans.forEach(loan -> availabilityIndex.markLoaned(loan.getBook().getId()));
+                countLoans("created", loans.size());
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException("Book already loaned.");
+        }
+        for (int i = 0; i < loans.size(); i++) {
+            createdItems.get(i).setLoanId(loans.get(i).getId());
+        }
+        return items;
+    }
+
+    @Override
+    @Transactional
+    public List<LoanBatchItemDTO> returnAll(List<Long> ids) {
+        Map<Long, Loan> loans = repository.findAllById(new HashSet<>(ids)).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        Set<Long> seen = new HashSet<>();
+        List<Long> returnedIds = new ArrayList<>();
+        List<Long> returnedBookIds = new ArrayList<>();
+        List<LoanBatchItemDTO> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Loan loan = loans.get(id);
+            LoanBatchItemDTO.Status status;
+            if (!seen.add(id)) {
+                status = LoanBatchItemDTO.Status.DUPLICATE;
+            } else if (loan == null) {
+                status = LoanBatchItemDTO.Status.NOT_FOUND;
+            } else if (Boolean.TRUE.equals(loan.getReturned())) {
+                status = LoanBatchItemDTO.Status.ALREADY_RETURNED;
+            } else {
+                loan.setReturned(true);
+                returnedIds.add(id);
+                returnedBookIds.add(loan.getBook().getId());
+                status = LoanBatchItemDTO.Status.RETURNED;
+            }
+            items.add(LoanBatchItemDTO.builder().loanId(id).status(status).build());
+        }
+        // The loans are managed, so the returned flags are flushed as one batch of updates on commit.
+        if (!returnedIds.isEmpty()) {
+            bookRepository.markReturned(returnedIds);
+            afterCommit(() -> {
+                returnedBookIds.forEach(availabilityIndex::markAvailable);
+                countLoans("returned", returnedIds.size());
+            });
+        }
+        return items;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
         return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageRequest) {
         return repository.findByBook(book, pageRequest);
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
+    @Transactional(readOnly = true)
+    public Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable) {
+        return repository.findSliceByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> getLoansByBookSlice(Book book, Pageable pageRequest) {
+        return repository.findSliceByBook(book, pageRequest);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheNames.COUNT_ESTIMATES, key = "{'loans', #filter.isbn, #filter.customer}")
+    public long estimateCount(LoanFilterDTO filter) {
+        return repository.countByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer());
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheNames.COUNT_ESTIMATES, key = "{'loansByBook', #book.id}")
+    public long estimateCountByBook(Book book) {
+        return repository.countByBook(book);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> findAfter(LoanFilterDTO filter, Long afterId, int size) {
+        PageRequest pageRequest = PageRequest.of(0, size, Sort.by("id"));
+        if (filter.getIsbn() == null && filter.getCustomer() == null) {
+            return repository.findByIdGreaterThan(afterId, pageRequest);
+        }
+        return repository.findByBookIsbnOrCustomerAfter(filter.getIsbn(), filter.getCustomer(), afterId, pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> getLoansByBookAfter(Book book, Long afterId, int size) {
+        return repository.findByBookAndIdGreaterThan(book, afterId, PageRequest.of(0, size, Sort.by("id")));
+    }
+
+    @Override
+    public Stream<String> streamLateLoanEmails(int partition, int partitions) {
         LocalDate threeDaysAgo = LocalDate.now().minusDays(4);
-        return repository.findByLoanDateLessThanAndReturnedIsFalseOrReturnedIsNull(threeDaysAgo);
+        return repository.streamLateLoanEmails(threeDaysAgo, partition, partitions);
     }
 
 
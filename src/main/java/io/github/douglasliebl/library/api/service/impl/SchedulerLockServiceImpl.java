@@ -0,0 +1,85 @@
+package io.github.douglasliebl.library.api.service.impl;
+
+import io.github.douglasliebl.library.api.config.MetricsConfig;
+import io.github.douglasliebl.library.api.model.repository.SchedulerLockRepository;
+import io.github.douglasliebl.library.api.service.SchedulerLockService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@RequiredArgsConstructor
+public class SchedulerLockServiceImpl implements SchedulerLockService {
+
+    @Value("${app.scheduling.instance-id:}")
+    private String instanceId;
+
+    private final SchedulerLockRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public boolean runLocked(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        LocalDateTime lockedAt = LocalDateTime.now();
+        if (!acquire(name, lockedAt, lockedAt.plus(lockAtMostFor))) {
+            log.debug("lock {} is held by another instance, skipping", name);
+            return false;
+        }
+
+        try {
+            log.info("lock {} acquired by {}", name, owner());
+            task.run();
+        } finally {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime minimum = lockedAt.plus(lockAtLeastFor);
+            LocalDateTime lockedUntil = now.isAfter(minimum) ? now : minimum;
+            transactionTemplate.executeWithoutResult(status -> repository.release(name, lockedUntil, owner()));
+        }
+        return true;
+    }
+
+    private boolean acquire(String name, LocalDateTime lockedAt, LocalDateTime lockedUntil) {
+        Integer updated = transactionTemplate.execute(status ->
+                repository.acquire(name, lockedUntil, lockedAt, owner()));
+        if (updated != null && updated > 0) {
+            return true;
+        }
+        if (repository.existsById(name)) {
+            return false;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    repository.insert(name, lockedUntil, lockedAt, owner()));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private String owner() {
+        if (!StringUtils.hasText(instanceId)) {
+            instanceId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        return instanceId;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
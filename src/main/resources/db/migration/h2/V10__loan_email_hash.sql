@@ -0,0 +1,2 @@
+-- Partition key of LoanRepository.streamLateLoanEmails, so that every late loan of a customer lands in one partition.
+ALTER TABLE tb_loan ADD COLUMN email_hash BIGINT GENERATED ALWAYS AS (ORA_HASH(email));
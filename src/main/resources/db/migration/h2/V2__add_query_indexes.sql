@@ -0,0 +1,8 @@
+-- H2 has no partial indexes, so the unreturned-loan indexes are plain composites here.
+CREATE UNIQUE INDEX ux_books_isbn ON tb_books (isbn);
+
+CREATE INDEX ix_loan_book_returned ON tb_loan (book_id, returned);
+
+CREATE INDEX ix_loan_customer ON tb_loan (customer);
+
+CREATE INDEX ix_loan_returned_loan_date ON tb_loan (returned, loan_date);
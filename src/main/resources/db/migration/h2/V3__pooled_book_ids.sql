@@ -0,0 +1,2 @@
+-- Book ids come from a pooled sequence (allocationSize = 50) so Hibernate can batch inserts.
+CREATE SEQUENCE tb_books_id_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,18 @@
+-- Outbox of mails waiting to be delivered by MailOutboxWorker.
+CREATE SEQUENCE tb_mail_outbox_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE tb_mail_outbox(
+    id BIGINT PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255),
+    body VARCHAR(4000),
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    locked_until TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX ix_mail_outbox_status_next_attempt ON tb_mail_outbox(status, next_attempt_at);
@@ -0,0 +1,5 @@
+-- H2 has no partial indexes, so the active loans expose their book in a generated column and the
+-- unique index over it ignores the returned loans, whose value is null.
+ALTER TABLE tb_loan ADD COLUMN active_book_id BIGINT GENERATED ALWAYS AS (CASE WHEN returned IS TRUE THEN NULL ELSE book_id END);
+
+CREATE UNIQUE INDEX ux_loan_active_book ON tb_loan (active_book_id);
@@ -0,0 +1,2 @@
+-- Optimistic-lock version of a book; it also drives the ETag of its representation.
+ALTER TABLE tb_books ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
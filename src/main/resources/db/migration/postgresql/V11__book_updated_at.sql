@@ -0,0 +1,3 @@
+-- Last write to a book, so that BookSearchIndex refreshes only the books changed since its last refresh.
+ALTER TABLE tb_books ADD COLUMN updated_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL;
+CREATE INDEX ix_books_updated_at ON tb_books (updated_at);
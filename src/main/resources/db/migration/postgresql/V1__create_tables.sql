@@ -13,4 +13,4 @@ CREATE TABLE tb_loan(
     returned BOOLEAN,
     book_id BIGINT,
     FOREIGN KEY (book_id) REFERENCES tb_books(id)
-);
\ No newline at end of file
+);
@@ -0,0 +1,14 @@
+-- BookRepository.findByIsbn / existsByIsbn, and the constraint BookServiceImpl.save relies on.
+CREATE UNIQUE INDEX ux_books_isbn ON tb_books (isbn);
+
+-- LoanRepository.findByBook and the book side of existsByBookAndReturnedIsFalseOrReturnedIsNull.
+CREATE INDEX ix_loan_book_returned ON tb_loan (book_id, returned);
+
+-- Customer branch of LoanRepository.findByBookIsbnOrCustomer.
+CREATE INDEX ix_loan_customer ON tb_loan (customer);
+
+-- "returned IS NULL" branch shared by the existsBy... and findByLoanDateLessThan... queries.
+CREATE INDEX ix_loan_unreturned ON tb_loan (loan_date, book_id) WHERE returned IS NULL;
+
+-- "loan_date < ? AND returned = false" branch of findByLoanDateLessThan...
+CREATE INDEX ix_loan_open_loan_date ON tb_loan (loan_date) WHERE returned = false;
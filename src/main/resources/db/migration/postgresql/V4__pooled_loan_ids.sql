@@ -0,0 +1,2 @@
+-- Loan ids come from a pooled sequence (allocationSize = 50) so Hibernate can batch inserts.
+ALTER SEQUENCE tb_loan_id_seq INCREMENT BY 50;
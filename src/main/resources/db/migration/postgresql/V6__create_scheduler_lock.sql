@@ -0,0 +1,7 @@
+-- Leases that keep a scheduled job (or one partition of it) running on a single replica.
+CREATE TABLE tb_scheduler_lock(
+    name VARCHAR(64) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    locked_at TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,3 @@
+-- At most one active loan per book, so concurrent checkouts of the same book cannot both commit.
+-- "returned IS NOT TRUE" matches the active-loan condition of the loan queries (false or null).
+CREATE UNIQUE INDEX ux_loan_active_book ON tb_loan (book_id) WHERE returned IS NOT TRUE;
@@ -0,0 +1,9 @@
+-- Availability is kept on the book itself, so checking it is a primary-key read instead of a loan scan.
+ALTER TABLE tb_books ADD COLUMN active_loan_id BIGINT;
+
+UPDATE tb_books b SET active_loan_id = (
+    SELECT max(l.id) FROM tb_loan l WHERE l.book_id = b.id AND l.returned IS NOT TRUE
+);
+
+-- Returning loans clears the marker by loan id.
+CREATE UNIQUE INDEX ux_books_active_loan ON tb_books (active_loan_id);
@@ -0,0 +1,96 @@
+package io.github.douglasliebl.library.api.config;
+
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.service.BookService;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the application on a primary and a replica that are separate H2 databases with the same schema,
+ * so a row seeded in one of them shows which database a service call went to.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReadReplicaConfigTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+        jdbc(REPLICA_URL).update("insert into tb_books (id, title, author, isbn) values (1000, 'Replica', 'Replica author', 'replica-1')");
+
+        registry.add("spring.datasource.url", () -> PRIMARY_URL);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("app.datasource.replica-urls", () -> REPLICA_URL);
+    }
+
+    @Test
+    @DisplayName("Should run the read-only service methods on the replica through the JPA transaction manager")
+    public void readOnlyServiceMethodTest() {
+        assertThat(transactionManager).isInstanceOf(JpaTransactionManager.class);
+
+        // when
+        Page<Book> books = bookService.find(Book.builder().author("Replica author").build(), PageRequest.of(0, 10));
+
+        // then
+        assertThat(books.getContent()).extracting(Book::getIsbn).containsExactly("replica-1");
+    }
+
+    @Test
+    @DisplayName("Should run the other service methods on the primary and keep the request's reads there")
+    public void writeServiceMethodTest() {
+        // when
+        Book saved = bookService.save(Book.builder().title("Primary").author("Primary author").isbn("primary-1").build());
+
+        // then
+        String byId = "select count(*) from tb_books where id = ?";
+        assertThat(jdbc(PRIMARY_URL).queryForObject(byId, Integer.class, saved.getId())).isEqualTo(1);
+        assertThat(jdbc(REPLICA_URL).queryForObject(byId, Integer.class, saved.getId())).isZero();
+
+        // The test runs inside a mock request, which now reads its own write from the primary; the next
+        // request reads from the replica, which never got the book.
+        Book filter = Book.builder().author("Primary author").build();
+        assertThat(bookService.find(filter, PageRequest.of(0, 10))).hasSize(1);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(bookService.find(filter, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        return new JdbcTemplate(dataSource);
+    }
+}
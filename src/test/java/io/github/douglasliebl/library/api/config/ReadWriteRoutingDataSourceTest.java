@@ -0,0 +1,189 @@
+package io.github.douglasliebl.library.api.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two or three in-memory H2 databases stand in for the primary and its replicas; each one answers
+ * {@code select name from node} with its own name.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource primary = node("primary");
+    private final DataSource replica = node("replica");
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replica and everything else to the primary")
+    public void routingTest() {
+        // given
+        Routing routing = routing(List.of(replica));
+
+        // then
+        assertThat(routing.readOnly()).isEqualTo("replica");
+        assertThat(routing.readWrite()).isEqualTo("primary");
+        assertThat(routing.jdbc.queryForObject("select name from node", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should balance reads across the replicas")
+    public void roundRobinTest() {
+        // given
+        Routing routing = routing(List.of(replica, node("other-replica")));
+
+        // when
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(routing.readOnly());
+        }
+
+        // then
+        assertThat(reads).containsExactly("replica", "other-replica", "replica", "other-replica");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while the replica refuses connections, and retry it later")
+    public void fallbackTest() throws Exception {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        Routing routing = routing(List.of(new DownDataSource(attempts)), Duration.ofMillis(200));
+
+        // then
+        assertThat(routing.readOnly()).isEqualTo("primary");
+        assertThat(routing.readOnly()).isEqualTo("primary");
+        assertThat(attempts).hasValue(1);
+
+        Thread.sleep(300);
+        assertThat(routing.readOnly()).isEqualTo("primary");
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should keep the reads of a request that wrote on the primary")
+    public void readYourWritesTest() {
+        // given
+        Routing routing = routing(List.of(replica));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(routing.readOnly()).isEqualTo("replica");
+
+        // when
+        routing.readWrite();
+
+        // then
+        assertThat(routing.readOnly()).isEqualTo("primary");
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(routing.readOnly()).isEqualTo("replica");
+    }
+
+    private Routing routing(List<DataSource> replicas) {
+        return routing(replicas, Duration.ofSeconds(30));
+    }
+
+    private Routing routing(List<DataSource> replicas, Duration retryInterval) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas, retryInterval));
+        return new Routing(new JdbcTemplate(dataSource), new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    private static DataSource node(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(50))");
+        jdbc.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+
+    private record Routing(JdbcTemplate jdbc, TransactionTemplate transactions) {
+
+        String readOnly() {
+            TransactionTemplate readOnly = new TransactionTemplate(transactions.getTransactionManager());
+            readOnly.setReadOnly(true);
+            return readOnly.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+
+        String readWrite() {
+            return transactions.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+    }
+
+    private static final class DownDataSource implements DataSource {
+
+        private final AtomicInteger attempts;
+
+        DownDataSource(AtomicInteger attempts) {
+            this.attempts = attempts;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts.incrementAndGet();
+            throw new SQLException("Connection refused");
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.douglasliebl.library.api.mapper;
+
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.LoanDTO;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoanMapperTest {
+
+    private final BookMapper bookMapper = new BookMapper();
+    private final LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+    @Test
+    @DisplayName("Should map a book to its dto and back")
+    public void bookRoundTripTest() {
+        // given
+        Book book = Book.builder().id(1L).title("My Book").author("Author").isbn("123").build();
+
+        // when
+        BookDTO dto = bookMapper.toDto(book);
+        Book entity = bookMapper.toEntity(dto);
+
+        // then
+        assertThat(dto).isEqualTo(BookDTO.builder().id(1L).title("My Book").author("Author").isbn("123").build());
+        assertThat(entity.getId()).isEqualTo(1L);
+        assertThat(entity.getTitle()).isEqualTo("My Book");
+        assertThat(entity.getAuthor()).isEqualTo("Author");
+        assertThat(entity.getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Should map a loan with its book and isbn")
+    public void loanToDtoTest() {
+        // given
+        Book book = Book.builder().id(1L).title("My Book").author("Author").isbn("123").build();
+        Loan loan = Loan.builder()
+                .id(2L)
+                .customer("Customer")
+                .email("customer@email.com")
+                .book(book)
+                .loanDate(LocalDate.now())
+                .build();
+
+        // when
+        LoanDTO dto = loanMapper.toDto(loan);
+
+        // then
+        assertThat(dto.getId()).isEqualTo(2L);
+        assertThat(dto.getCustomer()).isEqualTo("Customer");
+        assertThat(dto.getEmail()).isEqualTo("customer@email.com");
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(dto.getBook()).isEqualTo(bookMapper.toDto(book));
+    }
+
+    @Test
+    @DisplayName("Should map a loan without book")
+    public void loanWithoutBookTest() {
+        // when
+        LoanDTO dto = loanMapper.toDto(Loan.builder().id(1L).customer("Customer").build());
+
+        // then
+        assertThat(dto.getBook()).isNull();
+        assertThat(dto.getIsbn()).isNull();
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.douglasliebl.library.api.model.repository;
 
 import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,12 +9,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -28,57 +39,185 @@ class BookRepositoryTest {
     BookRepository repository;
 
     @Test
-    @DisplayName("Should return true when a isbn already exists")
-    public void returnTrueWhenIsbnAlreadyExists() {
+    @DisplayName("Should get a book by id")
+    public void findByIdTest() {
+        // given
+        Book book = createNewBook("123");
+        entityManager.persist(book); // entityManager.persist() é usado para persistir um objeto no banco de dados, ou seja, salvar um objeto no banco de dados;
 
-        String isbn = "123";
-        Book book = createNewBook(isbn);
-        entityManager.persist(book);
+        // when
+        Optional<Book> foundBook = repository.findById(book.getId());
+
+        // then
+        assertThat(foundBook.isPresent()).isTrue();
+    }
 
-        boolean exists = repository.existsByIsbn(isbn);
+    @Test
+    @DisplayName("Should save a book")
+    public void saveBookTest() {
+        // given
+        Book book = createNewBook("123");
 
-        assertThat(exists).isTrue();
+        // when
+        Book savedBook = repository.save(book);
 
+        // then
+        assertThat(savedBook.getId()).isNotNull();
     }
 
     @Test
-    @DisplayName("Should return false when a isbn does not exists")
-    public void returnFalseWhenIsbnDoesntExist() {
+    @DisplayName("Should reject a second book with the same isbn")
+    public void uniqueIsbnTest() {
         // given
-        String isbn = "123";
+        entityManager.persistAndFlush(createNewBook("123"));
 
         // when
-        boolean exists = repository.existsByIsbn(isbn);
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(createNewBook("123")));
 
         // then
-        assertThat(exists).isFalse();
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
     }
 
     @Test
-    @DisplayName("Should get a book by id")
-    public void findByIdTest() {
+    @DisplayName("Should seek the books after a given id")
+    public void findByIdGreaterThanTest() {
         // given
-        Book book = createNewBook("123");
-        entityManager.persist(book); // entityManager.persist() é usado para persistir um objeto no banco de dados, ou seja, salvar um objeto no banco de dados;
+        Book first = entityManager.persist(createNewBook("1"));
+        Book second = entityManager.persist(createNewBook("2"));
+        Book third = entityManager.persist(createNewBook("3"));
 
         // when
-        Optional<Book> foundBook = repository.findById(book.getId());
+        Slice<Book> result = repository.findByIdGreaterThan(first.getId(), PageRequest.of(0, 1, Sort.by("id")));
 
         // then
-        assertThat(foundBook.isPresent()).isTrue();
+        assertThat(result.getContent()).containsExactly(second);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(repository.findByIdGreaterThan(third.getId(), PageRequest.of(0, 1)).hasContent()).isFalse();
     }
 
     @Test
-    @DisplayName("Should save a book")
-    public void saveBookTest() {
+    @DisplayName("Should slice books by example without counting")
+    public void findSliceTest() {
         // given
-        Book book = createNewBook("123");
+        entityManager.persist(createNewBook("1"));
+        entityManager.persist(createNewBook("2"));
+        entityManager.persist(Book.builder().title("Other").author("Someone").isbn("3").build());
+        Example<Book> example = Example.of(Book.builder().title("my").build(),
+                ExampleMatcher.matching().withIgnoreCase().withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
 
         // when
-        Book savedBook = repository.save(book);
+        Slice<Book> firstPage = repository.findSlice(example, PageRequest.of(0, 1, Sort.by("isbn")));
+        Slice<Book> secondPage = repository.findSlice(example, PageRequest.of(1, 1, Sort.by("isbn")));
 
         // then
-        assertThat(savedBook.getId()).isNotNull();
+        assertThat(firstPage.getContent()).extracting(Book::getIsbn).containsExactly("1");
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).extracting(Book::getIsbn).containsExactly("2");
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should mark a book as loaned only while it is available")
+    public void markLoanedTest() {
+        // given
+        Book book = entityManager.persist(createNewBook("123"));
+
+        // when
+        int first = repository.markLoaned(book.getId(), 10L);
+        int again = repository.markLoaned(book.getId(), 10L);
+        int other = repository.markLoaned(book.getId(), 11L);
+
+        // then
+        assertThat(first).isEqualTo(1);
+        assertThat(again).isEqualTo(1);
+        assertThat(other).isZero();
+        assertThat(repository.existsByIdAndActiveLoanIdIsNotNull(book.getId())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should mark the books of a batch of loans in one statement, skipping the loaned ones")
+    public void markLoanedBatchTest() {
+        // given
+        Book first = entityManager.persist(createNewBook("1"));
+        Book second = entityManager.persist(createNewBook("2"));
+        Book taken = entityManager.persist(createNewBook("3"));
+        repository.markLoaned(taken.getId(), 99L);
+        Loan firstLoan = entityManager.persist(Loan.builder().book(first).loanDate(LocalDate.now()).build());
+        Loan secondLoan = entityManager.persist(Loan.builder().book(second).loanDate(LocalDate.now()).build());
+        Loan takenLoan = entityManager.persist(Loan.builder().book(taken).loanDate(LocalDate.now()).build());
+        entityManager.flush();
+
+        // when
+        int marked = repository.markLoaned(List.of(firstLoan.getId(), secondLoan.getId(), takenLoan.getId()));
+        entityManager.clear();
+
+        // then
+        assertThat(marked).isEqualTo(2);
+        assertThat(entityManager.find(Book.class, first.getId()).getActiveLoanId()).isEqualTo(firstLoan.getId());
+        assertThat(entityManager.find(Book.class, second.getId()).getActiveLoanId()).isEqualTo(secondLoan.getId());
+        assertThat(entityManager.find(Book.class, taken.getId()).getActiveLoanId()).isEqualTo(99L);
+    }
+
+    @Test
+    @DisplayName("Should clear the active loan of the returned loans")
+    public void markReturnedTest() {
+        // given
+        Book loaned = entityManager.persist(createNewBook("1"));
+        Book returned = entityManager.persist(createNewBook("2"));
+        Book available = entityManager.persist(createNewBook("3"));
+        repository.markLoaned(loaned.getId(), 10L);
+        repository.markLoaned(returned.getId(), 11L);
+
+        // when
+        int cleared = repository.markReturned(List.of(11L, 12L));
+
+        // then
+        assertThat(cleared).isEqualTo(1);
+        assertThat(repository.findLoanedIds(List.of(loaned.getId(), returned.getId(), available.getId())))
+                .containsExactly(loaned.getId());
+        assertThat(repository.existsByIdAndActiveLoanIdIsNotNull(returned.getId())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should update a book only while it has the expected version")
+    public void updateIfVersionTest() {
+        // given
+        Book book = entityManager.persist(createNewBook("123"));
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        int updated = repository.updateIfVersion(book.getId(), "New title", "New author", 0L, LocalDateTime.now());
+        int stale = repository.updateIfVersion(book.getId(), "Stale title", "Stale author", 0L, LocalDateTime.now());
+
+        // then
+        assertThat(updated).isEqualTo(1);
+        assertThat(stale).isZero();
+        assertThat(repository.findVersionById(book.getId())).contains(1L);
+        assertThat(repository.findById(book.getId())).get()
+                .extracting(Book::getTitle)
+                .isEqualTo("New title");
+    }
+
+    @Test
+    @DisplayName("Should find the books written since a point in time, including conditional updates")
+    public void findByUpdatedAtTest() {
+        // given
+        LocalDateTime since = LocalDateTime.of(2026, 10, 18, 10, 0);
+        Book untouched = entityManager.persist(createNewBook("1"));
+        Book updated = entityManager.persist(createNewBook("2"));
+        entityManager.flush();
+        entityManager.getEntityManager().createQuery("update Book b set b.updatedAt = :before")
+                .setParameter("before", since.minusDays(1))
+                .executeUpdate();
+
+        // when
+        repository.updateIfVersion(updated.getId(), "New title", "New author", 0L, since.plusMinutes(1));
+        Slice<Book> changed = repository.findByUpdatedAtGreaterThanEqual(since, PageRequest.of(0, 10, Sort.by("updatedAt", "id")));
+
+        // then
+        assertThat(changed.getContent()).extracting(Book::getId).containsExactly(updated.getId());
+        assertThat(untouched.getUpdatedAt()).isNotNull();
     }
 
     @Test
@@ -2,6 +2,8 @@ package io.github.douglasliebl.library.api.model.repository;
 
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,15 +11,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -33,24 +42,20 @@ class LoanRepositoryTest {
 
 
     @Test
-    @DisplayName("Should verify if exists loan with a book not returned")
-    public void existsByBookAndReturnedIsFalseTest() {
+    @DisplayName("Should reject a second active loan of the same book")
+    public void uniqueActiveLoanTest() {
         // given
-        Book book = Book.builder().build();
-        Loan loan = Loan.builder()
-                .book(book)
-                .customer("Customer")
-                .loanDate(LocalDate.now())
-                .build();
-
-        entityManager.persist(book);
-        entityManager.persist(loan);
+        Book book = entityManager.persist(Book.builder().isbn("1").build());
+        entityManager.persist(Loan.builder().book(book).customer("Customer").loanDate(LocalDate.now()).returned(true).build());
+        entityManager.persist(Loan.builder().book(book).customer("Customer").loanDate(LocalDate.now()).build());
+        entityManager.flush();
 
         // when
-        boolean exists = repository.existsByBookAndReturnedIsFalseOrReturnedIsNull(book);
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(
+                Loan.builder().book(book).customer("Other").loanDate(LocalDate.now()).returned(false).build()));
 
         // then
-        assertThat(exists).isTrue();
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
     }
 
     @Test
@@ -78,6 +83,44 @@ class LoanRepositoryTest {
         assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
     }
 
+    @Test
+    @DisplayName("Should seek loans by book isbn or customer after a given id")
+    public void findByBookIsbnOrCustomerAfterTest() {
+        // given
+        Book book = entityManager.persist(Book.builder().isbn("123").build());
+        Book otherBook = entityManager.persist(Book.builder().isbn("456").build());
+        Loan first = entityManager.persist(Loan.builder().book(book).customer("Other").loanDate(LocalDate.now()).build());
+        Loan second = entityManager.persist(Loan.builder().book(otherBook).customer("Customer").loanDate(LocalDate.now()).build());
+        entityManager.persist(Loan.builder().book(otherBook).customer("Nobody").loanDate(LocalDate.now()).returned(true).build());
+
+        // when
+        Slice<Loan> firstPage = repository.findByBookIsbnOrCustomerAfter("123", "Customer", 0L, PageRequest.of(0, 1, Sort.by("id")));
+        Slice<Loan> secondPage = repository.findByBookIsbnOrCustomerAfter("123", "Customer", first.getId(), PageRequest.of(0, 1, Sort.by("id")));
+
+        // then
+        assertThat(firstPage.getContent()).containsExactly(first);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).containsExactly(second);
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should slice loans by book isbn or customer without counting")
+    public void findSliceByBookIsbnOrCustomerTest() {
+        // given
+        Book book = entityManager.persist(Book.builder().isbn("123").build());
+        entityManager.persist(Loan.builder().book(book).customer("Customer").loanDate(LocalDate.now()).build());
+        entityManager.persist(Loan.builder().book(book).customer("Other").loanDate(LocalDate.now()).returned(true).build());
+
+        // when
+        Slice<Loan> result = repository.findSliceByBookIsbnOrCustomer("123", "Customer", PageRequest.of(0, 1));
+
+        // then
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(repository.countByBookIsbnOrCustomer("123", "Customer")).isEqualTo(2);
+    }
+
     @Test
     @DisplayName("Should find loans by book")
     public void findByBookTest() {
@@ -105,47 +148,108 @@ class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should get loans who loan date is less or equal to three days")
-    public void findByLoanDateLessThanAndReturnedIsFalseOrReturnedIsNullTest() {
+    @DisplayName("Should stream the e-mails of overdue loans not returned yet, ordered by e-mail")
+    public void streamLateLoanEmailsTest() {
         // given
-        Book book = Book.builder().build();
-        Loan loan = Loan.builder()
-                .book(book)
-                .customer("Customer")
-                .loanDate(LocalDate.now().minusDays(5))
-                .returned(false)
-                .build();
+        entityManager.persist(loan(entityManager.persist(Book.builder().build()), "b@email.com", LocalDate.now().minusDays(5), false));
+        entityManager.persist(loan(entityManager.persist(Book.builder().build()), "a@email.com", LocalDate.now().minusDays(6), null));
+        entityManager.persist(loan(entityManager.persist(Book.builder().build()), "returned@email.com", LocalDate.now().minusDays(5), true));
+        entityManager.persist(loan(entityManager.persist(Book.builder().build()), "recent@email.com", LocalDate.now(), null));
 
-        entityManager.persist(book);
-        entityManager.persist(loan);
+        // when
+        List<String> result;
+        try (Stream<String> emails = repository.streamLateLoanEmails(LocalDate.now().minusDays(4), 0, 1)) {
+            result = emails.toList();
+        }
+
+        // then
+        assertThat(result).containsExactly("a@email.com", "b@email.com");
+    }
+
+    @Test
+    @DisplayName("Should split the overdue loans into disjoint partitions, keeping each customer in one")
+    public void streamLateLoanEmailsPartitionTest() {
+        // given
+        List<String> customers = List.of("a@email.com", "b@email.com", "c@email.com", "d@email.com", "e@email.com", "f@email.com");
+        for (String email : customers) {
+            entityManager.persist(loan(entityManager.persist(Book.builder().build()), email, LocalDate.now().minusDays(5), null));
+            entityManager.persist(loan(entityManager.persist(Book.builder().build()), email, LocalDate.now().minusDays(6), false));
+        }
 
         // when
-        List<Loan> result = repository.findByLoanDateLessThanAndReturnedIsFalseOrReturnedIsNull(LocalDate.now().minusDays(4));
+        List<String> all = new ArrayList<>();
+        for (int partition = 0; partition < 3; partition++) {
+            try (Stream<String> emails = repository.streamLateLoanEmails(LocalDate.now().minusDays(4), partition, 3)) {
+                all.addAll(emails.toList());
+            }
+        }
 
         // then
-        assertThat(result).hasSize(1);
-        assertThat(result).contains(loan);
+        assertThat(all).hasSize(2 * customers.size());
+        assertThat(all).containsOnlyElementsOf(customers);
+        for (String email : customers) {
+            assertThat(all.indexOf(email) + 1).as("both loans of %s in one partition", email)
+                    .isEqualTo(all.lastIndexOf(email));
+        }
     }
 
     @Test
     @DisplayName("Should return empty when there no overdue loans")
-    public void notFindByLoanDateLessThanAndReturnedIsFalseOrReturnedIsNullTest() {
+    public void notStreamLateLoanEmailsTest() {
         // given
         Book book = Book.builder().build();
-        Loan loan = Loan.builder()
-                .book(book)
-                .customer("Customer")
-                .loanDate(LocalDate.now())
-                .returned(false)
-                .build();
-
         entityManager.persist(book);
-        entityManager.persist(loan);
+        entityManager.persist(loan(book, "customer@email.com", LocalDate.now(), false));
 
         // when
-        List<Loan> result = repository.findByLoanDateLessThanAndReturnedIsFalseOrReturnedIsNull(LocalDate.now().minusDays(4));
+        List<String> result;
+        try (Stream<String> emails = repository.streamLateLoanEmails(LocalDate.now().minusDays(4), 0, 1)) {
+            result = emails.toList();
+        }
 
         // then
         assertThat(result).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should load loan listings with their books in a single statement")
+    public void loanListingsDoNotLoadBooksPerRowTest() {
+        // given
+        for (int i = 0; i < 6; i++) {
+            Book book = entityManager.persist(Book.builder().title("Title " + i).isbn("isbn-" + i).build());
+            entityManager.persist(Loan.builder().book(book).customer("Customer").loanDate(LocalDate.now()).build());
+        }
+
+        // then
+        assertThat(statementsToList(() -> repository.findByBookIsbnOrCustomer(null, "Customer", PageRequest.of(0, 3))))
+                .isEqualTo(statementsToList(() -> repository.findByBookIsbnOrCustomer(null, "Customer", PageRequest.of(0, 6))));
+        assertThat(statementsToList(() -> repository.findSliceByBookIsbnOrCustomer(null, "Customer", PageRequest.of(0, 10))))
+                .isEqualTo(1);
+        assertThat(statementsToList(() -> repository.findByIdGreaterThan(0L, PageRequest.of(0, 10))))
+                .isEqualTo(1);
+    }
+
+    private static Loan loan(Book book, String email, LocalDate loanDate, Boolean returned) {
+        return Loan.builder()
+                .book(book)
+                .customer("Customer")
+                .email(email)
+                .loanDate(loanDate)
+                .returned(returned)
+                .build();
+    }
+
+    private long statementsToList(Supplier<Slice<Loan>> listing) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        listing.get().forEach(loan -> assertThat(loan.getBook().getTitle()).isNotNull());
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.douglasliebl.library.api.reactive;
+
+import io.github.douglasliebl.library.api.mapper.BookMapper;
+import io.github.douglasliebl.library.api.mapper.LoanMapper;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.service.BookService;
+import io.github.douglasliebl.library.api.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookReactiveHandlerTest {
+
+    static String BOOK_API = "/api/reactive/books";
+
+    private final BookService bookService = Mockito.mock(BookService.class);
+    private final LoanService loanService = Mockito.mock(LoanService.class);
+    private final BookMapper bookMapper = new BookMapper();
+
+    private WebTestClient client;
+
+    @BeforeEach
+    public void setUp() {
+        BookReactiveHandler handler = new BookReactiveHandler(bookService, loanService, bookMapper,
+                new LoanMapper(bookMapper), Schedulers.boundedElastic());
+        client = WebTestClient.bindToRouterFunction(handler.routes()).build();
+    }
+
+    @Test
+    @DisplayName("Should filter books and read the page request from the query")
+    public void findBooksTest() {
+        // given
+        Book book = Book.builder().id(1L).title("My Book").author("Author").isbn("123").build();
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(List.of(book), PageRequest.of(0, 10), 1));
+
+        // when
+        client.get().uri(BOOK_API + "?author=Author&page=0&size=10&sort=title,desc")
+                .exchange()
+                // then
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content[0].id").isEqualTo(1)
+                .jsonPath("content[0].isbn").isEqualTo("123")
+                .jsonPath("page.totalElements").isEqualTo(1)
+                .jsonPath("page.size").isEqualTo(10);
+
+        ArgumentCaptor<Book> filter = ArgumentCaptor.forClass(Book.class);
+        ArgumentCaptor<Pageable> pageRequest = ArgumentCaptor.forClass(Pageable.class);
+        Mockito.verify(bookService).find(filter.capture(), pageRequest.capture());
+        assertThat(filter.getValue().getAuthor()).isEqualTo("Author");
+        assertThat(pageRequest.getValue()).isEqualTo(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "title")));
+    }
+
+    @Test
+    @DisplayName("Should search books when a query is given")
+    public void searchBooksTest() {
+        // given
+        BDDMockito.given(bookService.search(Mockito.eq("tolkien"), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+
+        // when
+        client.get().uri(BOOK_API + "?q=tolkien")
+                .exchange()
+                // then
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content").isEmpty()
+                .jsonPath("page.size").isEqualTo(20);
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should reject field filters combined with a query")
+    public void searchBooksWithFiltersTest() {
+        // when
+        client.get().uri(BOOK_API + "?q=tolkien&author=Tolkien")
+                .exchange()
+                // then
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Filters are not supported with q search");
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    @DisplayName("Should get a book by id or answer not found")
+    public void getBookTest() {
+        // given
+        Book book = Book.builder().id(1L).title("My Book").author("Author").isbn("123").build();
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(bookService.getById(2L)).willReturn(Optional.empty());
+
+        // then
+        client.get().uri(BOOK_API + "/1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("title").isEqualTo("My Book");
+        client.get().uri(BOOK_API + "/2").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Should list the loans of a book")
+    public void loansByBookTest() {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Loan loan = Loan.builder().id(5L).book(book).customer("Customer").loanDate(LocalDate.now()).build();
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getLoansByBook(Mockito.eq(book), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(List.of(loan), PageRequest.of(0, 20), 1));
+
+        // when
+        client.get().uri(BOOK_API + "/1/loans").exchange()
+                // then
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content[0].id").isEqualTo(5)
+                .jsonPath("content[0].customer").isEqualTo("Customer")
+                .jsonPath("page.totalElements").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should answer bad request for an invalid id or page request")
+    public void invalidRequestTest() {
+        client.get().uri(BOOK_API + "/abc").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Invalid id");
+        client.get().uri(BOOK_API + "?size=-1").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Invalid page request");
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+}
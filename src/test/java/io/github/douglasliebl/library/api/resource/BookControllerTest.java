@@ -1,12 +1,18 @@
 package io.github.douglasliebl.library.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import io.github.douglasliebl.library.api.dto.BookAvailabilityDTO;
 import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.BookImportErrorDTO;
+import io.github.douglasliebl.library.api.dto.BookImportReportDTO;
 import io.github.douglasliebl.library.api.dto.BookUpdateDTO;
 import io.github.douglasliebl.library.api.exception.BusinessException;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.service.BookImportService;
 import io.github.douglasliebl.library.api.service.BookService;
+import io.github.douglasliebl.library.api.service.ExportService;
 import io.github.douglasliebl.library.api.service.LoanService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -21,18 +27,32 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -49,6 +69,12 @@ class BookControllerTest {
     @MockBean
     BookService bookService;
 
+    @MockBean
+    BookImportService bookImportService;
+
+    @MockBean
+    ExportService exportService;
+
     @MockBean
     LoanService loanService;
 
@@ -146,6 +172,51 @@ class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should tell which books are available, on loan or unknown")
+    public void availabilityTest() throws Exception {
+        // given
+        BDDMockito.given(bookService.getAvailability(List.of(1L, 2L, 3L)))
+                .willReturn(BookAvailabilityDTO.builder()
+                        .available(List.of(1L))
+                        .loaned(List.of(2L))
+                        .notFound(List.of(3L))
+                        .build());
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/availability?ids=1,2,3"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("available[0]").value(1))
+                .andExpect(jsonPath("loaned[0]").value(2))
+                .andExpect(jsonPath("notFound[0]").value(3));
+    }
+
+    @Test
+    @DisplayName("Should reject availability requests for too many ids")
+    public void availabilityTooManyIdsTest() throws Exception {
+        // given
+        String ids = LongStream.rangeClosed(1, 1001)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/availability"))
+                .param("ids", ids)
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("At most 1000 ids are supported"));
+        Mockito.verifyNoInteractions(bookService);
+    }
+
     @Test
     @DisplayName("Should throw resource not found exception when book does not exist.")
     public void bookNotFoundTest() throws Exception {
@@ -212,7 +283,7 @@ class BookControllerTest {
                 .title("some title")
                 .author("some Author")
                 .isbn("123456").build();
-        BDDMockito.given(bookService.getById(id))
+        BDDMockito.given(bookService.reload(id))
                 .willReturn(Optional.of(updatingBook));
 
         BookDTO updatedBook = BookDTO.builder()
@@ -239,12 +310,175 @@ class BookControllerTest {
                 .andExpect(jsonPath("isbn").value("123456"));
     }
 
+    @Test
+    @DisplayName("Should send the version of a book as its ETag")
+    public void getBookETagTest() throws Exception {
+        // given
+        Book book = Book.builder().id(11L).title("My Book").author("Author").isbn("123456").version(3L).build();
+        BDDMockito.given(bookService.getById(11L)).willReturn(Optional.of(book));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/11"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("version").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should answer not modified from the version alone when the client has the current book")
+    public void getBookNotModifiedTest() throws Exception {
+        // given
+        BDDMockito.given(bookService.getVersion(11L)).willReturn(Optional.of(3L));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/11"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reload a cached book that is older than the version just read")
+    public void getBookStaleCacheTest() throws Exception {
+        // given
+        BDDMockito.given(bookService.getVersion(11L)).willReturn(Optional.of(4L));
+        BDDMockito.given(bookService.getById(11L))
+                .willReturn(Optional.of(Book.builder().id(11L).title("Old").author("Author").isbn("123456").version(3L).build()));
+        BDDMockito.given(bookService.reload(11L))
+                .willReturn(Optional.of(Book.builder().id(11L).title("New").author("Author").isbn("123456").version(4L).build()));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/11"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("title").value("New"));
+    }
+
+    @Test
+    @DisplayName("Should update a book when If-Match holds its current version")
+    public void updateBookIfMatchTest() throws Exception {
+        // given
+        BookUpdateDTO updateData = BookUpdateDTO.builder().title("My Book").author("Author").build();
+        Book updatingBook = Book.builder().id(11L).title("some title").author("some Author").isbn("123456").version(3L).build();
+        BDDMockito.given(bookService.getById(11L)).willReturn(Optional.of(updatingBook));
+        BDDMockito.given(bookService.update(updatingBook, updateData, 3L))
+                .willReturn(BookDTO.builder().id(11L).title("My Book").author("Author").isbn("123456").version(4L).build());
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/11"))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(new ObjectMapper().writeValueAsString(updateData))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("title").value("My Book"));
+        Mockito.verify(bookService, Mockito.never()).update(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should fail the precondition when If-Match holds an outdated version")
+    public void updateBookPreconditionFailedTest() throws Exception {
+        // given
+        BookUpdateDTO updateData = BookUpdateDTO.builder().title("My Book").author("Author").build();
+        Book updatingBook = Book.builder().id(11L).isbn("123456").version(4L).build();
+        BDDMockito.given(bookService.getById(11L)).willReturn(Optional.of(updatingBook));
+        BDDMockito.given(bookService.update(updatingBook, updateData, 3L))
+                .willThrow(new OptimisticLockingFailureException("Book was modified by another request."));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/11"))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(new ObjectMapper().writeValueAsString(updateData))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("errors[0]").value("Book was modified by another request."));
+    }
+
+    @Test
+    @DisplayName("Should retry an update without If-Match on the fresh version when another write lands first")
+    public void updateBookRetryTest() throws Exception {
+        // given
+        BookUpdateDTO updateData = BookUpdateDTO.builder().title("My Book").author("Author").build();
+        Book staleBook = Book.builder().id(11L).isbn("123456").version(4L).build();
+        Book freshBook = Book.builder().id(11L).isbn("123456").version(5L).build();
+        BDDMockito.given(bookService.reload(11L)).willReturn(Optional.of(staleBook), Optional.of(freshBook));
+        BDDMockito.given(bookService.update(staleBook, updateData))
+                .willThrow(new OptimisticLockingFailureException("Book was modified by another request."));
+        BDDMockito.given(bookService.update(freshBook, updateData))
+                .willReturn(BookDTO.builder().id(11L).title("My Book").author("Author").isbn("123456").version(6L).build());
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/11"))
+                .content(new ObjectMapper().writeValueAsString(updateData))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"6\""))
+                .andExpect(jsonPath("title").value("My Book"));
+    }
+
+    @Test
+    @DisplayName("Should return conflict, not a failed precondition, when an update without If-Match keeps losing the race")
+    public void updateBookConflictTest() throws Exception {
+        // given
+        BookUpdateDTO updateData = BookUpdateDTO.builder().title("My Book").author("Author").build();
+        Book updatingBook = Book.builder().id(11L).isbn("123456").version(4L).build();
+        BDDMockito.given(bookService.reload(11L)).willReturn(Optional.of(updatingBook));
+        BDDMockito.given(bookService.update(updatingBook, updateData))
+                .willThrow(new OptimisticLockingFailureException("Book was modified by another request."));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/11"))
+                .content(new ObjectMapper().writeValueAsString(updateData))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("errors[0]").value("Book is being modified by other requests, try again."));
+        Mockito.verify(bookService, Mockito.times(3)).update(updatingBook, updateData);
+    }
+
     @Test
     @DisplayName("Should return not found when not found the book to update")
     public void updateNotRegisteredBookTest() throws Exception {
         // given
         String json = new ObjectMapper().writeValueAsString(createNewBook());
-        BDDMockito.given(bookService.getById(Mockito.anyLong()))
+        BDDMockito.given(bookService.reload(Mockito.anyLong()))
                 .willReturn(Optional.empty());
 
         // when
@@ -285,12 +519,142 @@ class BookControllerTest {
         mockMvc.perform(requestBuilder)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
-                .andExpect(jsonPath("totalElements").value(1))
-                .andExpect(jsonPath("pageable.pageSize").value(100))
-                .andExpect(jsonPath("pageable.pageNumber").value(0));
+                .andExpect(jsonPath("page.totalElements").value(1))
+                .andExpect(jsonPath("page.size").value(100))
+                .andExpect(jsonPath("page.number").value(0))
+                .andExpect(jsonPath("page.totalPages").value(1))
+                .andExpect(jsonPath("pageable").doesNotExist());
 
     }
 
+    @Test
+    @DisplayName("Should search books by relevance when q is given")
+    public void searchBooksTest() throws Exception {
+        // given
+        Book book = Book.builder()
+                .id(11L)
+                .title(createNewBook().getTitle())
+                .author(createNewBook().getAuthor())
+                .isbn(createNewBook().getIsbn())
+                .build();
+
+        BDDMockito.given(bookService.search(Mockito.eq("my book"), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Collections.singletonList(book), PageRequest.of(0, 20), 1));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?q=my book"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(11))
+                .andExpect(jsonPath("page.totalElements").value(1));
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should list books without a total when count=none")
+    public void findBooksWithoutCountTest() throws Exception {
+        // given
+        Book book = Book.builder().id(11L).title("My Book").author("Author").isbn("123456").build();
+        BDDMockito.given(bookService.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<>(Collections.singletonList(book), PageRequest.of(0, 1), true));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?count=none&page=0&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(true))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should list books with an estimated total when count=estimated")
+    public void findBooksWithEstimatedCountTest() throws Exception {
+        // given
+        Book book = Book.builder().id(11L).title("My Book").author("Author").isbn("123456").build();
+        BDDMockito.given(bookService.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<>(Collections.singletonList(book), PageRequest.of(0, 1), true));
+        BDDMockito.given(bookService.estimateCount(Mockito.any(Book.class)))
+                .willReturn(1000L);
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?count=estimated&page=0&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count-Estimated", "true"))
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("page.totalElements").value(1000));
+    }
+
+    @Test
+    @DisplayName("Should page books with a cursor")
+    public void findBooksWithCursorTest() throws Exception {
+        // given
+        Book book = Book.builder().id(11L).title("My Book").author("Author").isbn("123456").build();
+        BDDMockito.given(bookService.findAfter(0L, 1))
+                .willReturn(new SliceImpl<>(Collections.singletonList(book), PageRequest.of(0, 1), true));
+
+        // when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get(BOOK_API.concat("?cursor=&size=1"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("next").isNotEmpty())
+                .andReturn();
+
+        // then
+        String next = JsonPath.read(result.getResponse().getContentAsString(), "$.next");
+        BDDMockito.given(bookService.findAfter(11L, 1))
+                .willReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 1), false));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(BOOK_API.concat("?size=1&cursor=" + next))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(0)))
+                .andExpect(jsonPath("next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should reject field filters combined with a q search")
+    public void searchWithFiltersTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(BOOK_API.concat("?q=my book&author=Author"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Filters are not supported with q search"));
+
+        Mockito.verify(bookService, Mockito.never()).search(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid cursor")
+    public void invalidCursorTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get(BOOK_API.concat("?cursor=not-a-cursor"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid cursor"));
+    }
+
     @Test
     @DisplayName("Should get loans by book")
     public void getLoansByBookTest() throws Exception {
@@ -326,9 +690,9 @@ class BookControllerTest {
         mockMvc.perform(requestBuilder)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
-                .andExpect(jsonPath("totalElements").value(1))
-                .andExpect(jsonPath("pageable.pageSize").value(10))
-                .andExpect(jsonPath("pageable.pageNumber").value(0));
+                .andExpect(jsonPath("page.totalElements").value(1))
+                .andExpect(jsonPath("page.size").value(10))
+                .andExpect(jsonPath("page.number").value(0));
     }
 
     @Test
@@ -358,6 +722,73 @@ class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Should import a CSV stream and return the import report")
+    public void importBooksTest() throws Exception {
+        // given
+        BookImportReportDTO report = BookImportReportDTO.builder()
+                .imported(1)
+                .rejected(1)
+                .errors(List.of(BookImportErrorDTO.builder().line(3).isbn("123").message("Isbn already exists.").build()))
+                .build();
+        BDDMockito.given(bookImportService.importBooks(Mockito.any(InputStream.class), Mockito.eq(BookImportService.Format.CSV)))
+                .willReturn(report);
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("title,author,isbn\nMy Book,Author,456\nMy Book,Author,123\n");
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("rejected").value(1))
+                .andExpect(jsonPath("errors[0].line").value(3))
+                .andExpect(jsonPath("errors[0].message").value("Isbn already exists."));
+    }
+
+    @Test
+    @DisplayName("Should reject imports with an unsupported content type")
+    public void importBooksUnsupportedTypeTest() throws Exception {
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType(MediaType.APPLICATION_XML)
+                .content("<books/>");
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    @DisplayName("Should stream the book export as CSV when the client accepts CSV")
+    public void exportBooksAsCsvTest() throws Exception {
+        // given
+        Mockito.doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write("id,title,author,isbn\n1,My Book,Author,123\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportBooks(Mockito.any(OutputStream.class), Mockito.eq(ExportService.Format.CSV));
+
+        // when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get(BOOK_API.concat("/export"))
+                        .accept("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.csv\""))
+                .andExpect(content().string("id,title,author,isbn\n1,My Book,Author,123\n"));
+    }
+
     private static BookDTO createNewBook() {
         return BookDTO.builder().author("Author").title("My Book").isbn("123456").build();
     }
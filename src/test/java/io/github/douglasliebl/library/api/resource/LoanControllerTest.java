@@ -1,13 +1,17 @@
 package io.github.douglasliebl.library.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.douglasliebl.library.api.dto.LoanBatchDTO;
+import io.github.douglasliebl.library.api.dto.LoanBatchItemDTO;
 import io.github.douglasliebl.library.api.dto.LoanDTO;
 import io.github.douglasliebl.library.api.dto.LoanFilterDTO;
+import io.github.douglasliebl.library.api.dto.ReturnedLoanBatchDTO;
 import io.github.douglasliebl.library.api.dto.ReturnedLoanDTO;
 import io.github.douglasliebl.library.api.exception.BusinessException;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
 import io.github.douglasliebl.library.api.service.BookService;
+import io.github.douglasliebl.library.api.service.ExportService;
 import io.github.douglasliebl.library.api.service.LoanService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -22,18 +26,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -53,6 +67,9 @@ public class LoanControllerTest {
     @MockBean
     private LoanService loanService;
 
+    @MockBean
+    private ExportService exportService;
+
     @Test
     @DisplayName("Should make a loan")
     public void createLoanTest() throws Exception {
@@ -144,6 +161,91 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("errors[0]").value("Book already loaned."));
     }
 
+    @Test
+    @DisplayName("Should make the loans of a batch")
+    public void createLoansTest() throws Exception {
+        // given
+        LoanBatchDTO dto = LoanBatchDTO.builder()
+                .customer("Customer")
+                .email("customer@email.com")
+                .isbns(List.of("123", "456"))
+                .build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Map<String, Book> booksByIsbn = Map.of("123", book);
+
+        BDDMockito.given(bookService.getBooksByIsbns(Set.of("123", "456")))
+                .willReturn(booksByIsbn);
+        BDDMockito.given(loanService.saveAll(dto, booksByIsbn))
+                .willReturn(List.of(
+                        LoanBatchItemDTO.builder().isbn("123").loanId(1L).status(LoanBatchItemDTO.Status.CREATED).build(),
+                        LoanBatchItemDTO.builder().isbn("456").status(LoanBatchItemDTO.Status.NOT_FOUND).build()));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .post(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("[0].loanId").value(1))
+                .andExpect(jsonPath("[0].status").value("CREATED"))
+                .andExpect(jsonPath("[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("[1].loanId").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should reject an empty batch of loans")
+    public void createEmptyLoanBatchTest() throws Exception {
+        // given
+        LoanBatchDTO dto = LoanBatchDTO.builder()
+                .customer("Customer")
+                .email("customer@email.com")
+                .isbns(List.of())
+                .build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .post(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isBadRequest());
+        Mockito.verify(loanService, Mockito.never()).saveAll(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should return the books of a batch")
+    public void returnBooksTest() throws Exception {
+        // given
+        String json = new ObjectMapper().writeValueAsString(ReturnedLoanBatchDTO.builder().ids(List.of(1L, 2L)).build());
+
+        BDDMockito.given(loanService.returnAll(List.of(1L, 2L)))
+                .willReturn(List.of(
+                        LoanBatchItemDTO.builder().loanId(1L).status(LoanBatchItemDTO.Status.RETURNED).build(),
+                        LoanBatchItemDTO.builder().loanId(2L).status(LoanBatchItemDTO.Status.ALREADY_RETURNED).build()));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("[0].status").value("RETURNED"))
+                .andExpect(jsonPath("[1].status").value("ALREADY_RETURNED"));
+    }
+
     @Test
     @DisplayName("Should return a book")
     public void returnBookTest() throws Exception {
@@ -220,8 +322,82 @@ public class LoanControllerTest {
         mockMvc.perform(requestBuilder)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
-                .andExpect(jsonPath("totalElements").value(1))
-                .andExpect(jsonPath("pageable.pageSize").value(10))
-                .andExpect(jsonPath("pageable.pageNumber").value(0));
+                .andExpect(jsonPath("page.totalElements").value(1))
+                .andExpect(jsonPath("page.size").value(10))
+                .andExpect(jsonPath("page.number").value(0));
+    }
+
+    @Test
+    @DisplayName("Should filter loans with a cursor")
+    public void findLoansWithCursorTest() throws Exception {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Loan loan = Loan.builder()
+                .id(5L)
+                .book(book)
+                .customer("Customer")
+                .loanDate(LocalDate.now())
+                .build();
+
+        BDDMockito.given(loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.eq(0L), Mockito.eq(10)))
+                .willReturn(new SliceImpl<>(Collections.singletonList(loan), PageRequest.of(0, 10), false));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Customer&size=10&cursor="))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value("123"))
+                .andExpect(jsonPath("next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should filter loans without a total when count=none")
+    public void findLoansWithoutCountTest() throws Exception {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Loan loan = Loan.builder().id(1L).book(book).customer("Customer").loanDate(LocalDate.now()).build();
+
+        BDDMockito.given(loanService.findSlice(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<>(Collections.singletonList(loan), PageRequest.of(0, 10), false));
+
+        // when
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Customer&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(false));
+
+        Mockito.verify(loanService, Mockito.never()).find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should stream the loan export as NDJSON by default")
+    public void exportLoansTest() throws Exception {
+        // given
+        Mockito.doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write("{\"id\":1,\"customer\":\"Customer\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportLoans(Mockito.any(OutputStream.class), Mockito.eq(ExportService.Format.NDJSON));
+
+        // when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/export")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1,\"customer\":\"Customer\"}\n"));
     }
 }
@@ -0,0 +1,129 @@
+package io.github.douglasliebl.library.api.resource;
+
+import com.jayway.jsonpath.JsonPath;
+import io.github.douglasliebl.library.api.metrics.SqlStatisticsFilter;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.model.repository.LoanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.douglasliebl.library.api.resource.SqlStatisticsMatchers.entitiesAtMost;
+import static io.github.douglasliebl.library.api.resource.SqlStatisticsMatchers.statementsAtMost;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.sql-statistics.headers=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryBudgetTest {
+
+    private static final int LOANS = 30;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    List<Book> books;
+
+    @BeforeEach
+    public void setUp() {
+        List<Book> seeded = new ArrayList<>();
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            seeded.add(Book.builder().title("Title " + i).author("Budget").isbn("budget-" + i).build());
+        }
+        books = bookRepository.saveAll(seeded);
+        for (Book book : books) {
+            loans.add(Loan.builder().book(book).customer("Budget customer").loanDate(LocalDate.now()).returned(true).build());
+        }
+        loanRepository.saveAll(loans);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should list loans with their books without a query per loan")
+    public void findLoansBudgetTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/loans?customer=Budget customer&page=0&size=" + LOANS))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2))
+                .andExpect(entitiesAtMost(2L * LOANS));
+    }
+
+    @Test
+    @DisplayName("Should search books with a page query and a count query")
+    public void findBooksBudgetTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books?author=Budget&page=0&size=10"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(2))
+                .andExpect(entitiesAtMost(10));
+    }
+
+    @Test
+    @DisplayName("Should get a book with at most one query")
+    public void getBookBudgetTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/" + books.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(1));
+    }
+
+    @Test
+    @DisplayName("Should make and return a loan within a fixed number of statements")
+    public void loanRoundTripBudgetTest() throws Exception {
+        var created = mockMvc.perform(MockMvcRequestBuilders.post("/api/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"isbn\": \"budget-0\", \"customer\": \"Customer\", \"email\": \"customer@email.com\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(statementsAtMost(6))
+                .andReturn();
+        long id = JsonPath.parse(created.getResponse().getContentAsString()).read("$.id", Long.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/loans/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"returned\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(statementsAtMost(4));
+    }
+
+    @Test
+    @DisplayName("Should return the SQL counts as headers and record them as metrics")
+    public void headersAndMetricsTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books?author=Budget&page=0&size=10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENTS_HEADER, "2"))
+                .andExpect(header().string(SqlStatisticsFilter.ENTITIES_HEADER, "10"))
+                .andExpect(header().exists(SqlStatisticsFilter.TIME_HEADER));
+
+        assertThat(meterRegistry.get("library.sql.statements").tag("uri", "/api/books").summary().count()).isPositive();
+        assertThat(meterRegistry.get("library.sql.time").tag("method", "GET").timer().count()).isPositive();
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.douglasliebl.library.api.resource;
+
+import io.github.douglasliebl.library.api.metrics.SqlStatistics;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query budgets for MockMvc tests that run against the real database, e.g.
+ * {@code .andExpect(SqlStatisticsMatchers.statementsAtMost(2))}. The counts come from the
+ * {@link SqlStatistics} the request filter leaves on the request.
+ */
+final class SqlStatisticsMatchers {
+
+    private SqlStatisticsMatchers() {
+    }
+
+    static ResultMatcher statementsAtMost(long max) {
+        return atMost("SQL statements", SqlStatistics::getStatements, max);
+    }
+
+    static ResultMatcher entitiesAtMost(long max) {
+        return atMost("entities loaded", SqlStatistics::getEntities, max);
+    }
+
+    private static ResultMatcher atMost(String what, ToLongFunction<SqlStatistics> count, long max) {
+        return result -> {
+            SqlStatistics statistics = statistics(result);
+            assertThat(count.applyAsLong(statistics))
+                    .as("%s for %s %s (%s)", what, result.getRequest().getMethod(), result.getRequest().getRequestURI(), statistics)
+                    .isLessThanOrEqualTo(max);
+        };
+    }
+
+    private static SqlStatistics statistics(MvcResult result) {
+        Object statistics = result.getRequest().getAttribute(SqlStatistics.REQUEST_ATTRIBUTE);
+        assertThat(statistics).as("SQL statistics of the request; is the filter registered?").isInstanceOf(SqlStatistics.class);
+        return (SqlStatistics) statistics;
+    }
+}
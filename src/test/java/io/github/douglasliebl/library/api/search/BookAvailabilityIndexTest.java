@@ -0,0 +1,107 @@
+package io.github.douglasliebl.library.api.search;
+
+import io.github.douglasliebl.library.api.dto.BookAvailabilityDTO;
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class BookAvailabilityIndexTest {
+
+    BookAvailabilityIndex index;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @MockBean
+    BookRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        this.index = new BookAvailabilityIndex(repository, new JobMetrics(meterRegistry));
+    }
+
+    @Test
+    @DisplayName("Should rebuild from the database in pages of ids")
+    public void rebuildTest() {
+        // given
+        List<Long> firstPage = LongStream.rangeClosed(1, 10_000).boxed().toList();
+        Mockito.when(repository.findIdsAfter(Mockito.eq(0L), Mockito.any(Pageable.class))).thenReturn(firstPage);
+        Mockito.when(repository.findIdsAfter(Mockito.eq(10_000L), Mockito.any(Pageable.class))).thenReturn(List.of(10_001L));
+        Mockito.when(repository.findLoanedIdsAfter(Mockito.eq(0L), Mockito.any(Pageable.class))).thenReturn(List.of(2L, 10_001L));
+
+        // when
+        index.rebuild();
+        BookAvailabilityDTO result = index.availability(List.of(1L, 2L, 10_001L, 10_002L));
+
+        // then
+        assertThat(result.getAvailable()).containsExactly(1L);
+        assertThat(result.getLoaned()).containsExactly(2L, 10_001L);
+        assertThat(result.getNotFound()).containsExactly(10_002L);
+        Mockito.verify(repository, Mockito.times(2)).findIdsAfter(Mockito.anyLong(), Mockito.any(Pageable.class));
+        assertThat(meterRegistry.get("library.job").tags("job", "availability-index", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("library.job.last.duration").tag("job", "availability-index").timeGauge().value())
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep the checkouts and returns made while a rebuild reads the table")
+    public void changesDuringRebuildTest() {
+        // given
+        index.add(1L);
+        index.add(2L);
+        index.markLoaned(2L);
+        Mockito.when(repository.findIdsAfter(Mockito.eq(0L), Mockito.any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        Mockito.when(repository.findLoanedIdsAfter(Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // These commit after the rebuild read the loaned ids.
+                    index.markLoaned(1L);
+                    index.markAvailable(2L);
+                    return List.of(2L);
+                });
+
+        // when
+        index.rebuild();
+
+        // then
+        BookAvailabilityDTO result = index.availability(List.of(1L, 2L));
+        assertThat(result.getLoaned()).containsExactly(1L);
+        assertThat(result.getAvailable()).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should follow checkouts, returns and removed books")
+    public void updateTest() {
+        // given
+        index.add(1L);
+        index.add(2L);
+        index.add(3L);
+
+        // when
+        index.markLoaned(1L);
+        index.markLoaned(2L);
+        index.markAvailable(2L);
+        index.remove(3L);
+
+        // then
+        BookAvailabilityDTO result = index.availability(List.of(3L, 2L, 1L));
+        assertThat(result.getAvailable()).containsExactly(2L);
+        assertThat(result.getLoaned()).containsExactly(1L);
+        assertThat(result.getNotFound()).containsExactly(3L);
+    }
+}
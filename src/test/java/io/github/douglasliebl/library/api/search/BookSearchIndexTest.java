@@ -0,0 +1,163 @@
+package io.github.douglasliebl.library.api.search;
+
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @MockBean
+    BookRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        this.index = new BookSearchIndex(repository, new JobMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("Should fold case and accents when tokenizing")
+    public void tokenizeTest() {
+        assertThat(BookSearchIndex.tokenize("  Dom Casmurro: Machado de ASSÍS "))
+                .containsExactly("dom", "casmurro", "machado", "de", "assis");
+        assertThat(BookSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should rank title matches above author matches")
+    public void rankTest() {
+        // given
+        index.index(book(1L, "Clean Code", "Robert Martin"));
+        index.index(book(2L, "Working with Martin", "Someone Else"));
+        index.index(book(3L, "Refactoring", "Martin Fowler"));
+
+        // when
+        List<Long> result = index.search("martin");
+
+        // then
+        assertThat(result).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Should require every term and accept prefixes")
+    public void everyTermAndPrefixTest() {
+        // given
+        index.index(book(1L, "Domain-Driven Design", "Eric Evans"));
+        index.index(book(2L, "Design Patterns", "Erich Gamma"));
+
+        // then
+        assertThat(index.search("design eric")).containsExactly(1L, 2L);
+        assertThat(index.search("design evans")).containsExactly(1L);
+        assertThat(index.search("patt")).containsExactly(2L);
+        assertThat(index.search("unknown")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and removals")
+    public void updateAndRemoveTest() {
+        // given
+        index.index(book(1L, "Old Title", "Author"));
+
+        // when
+        index.index(book(1L, "New Title", "Author"));
+
+        // then
+        assertThat(index.search("old")).isEmpty();
+        assertThat(index.search("new")).containsExactly(1L);
+
+        // when
+        index.remove(1L);
+
+        // then
+        assertThat(index.search("title")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rebuild from the repository")
+    public void rebuildTest() {
+        // given
+        Mockito.when(repository.findByIdGreaterThan(Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(book(1L, "My Book", "Author"))));
+
+        // when
+        index.rebuild();
+
+        // then
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("book")).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should keep the writes made while a rebuild reads the table")
+    public void writesDuringRebuildTest() {
+        // given
+        index.index(book(1L, "Stale Title", "Author"));
+        Mockito.when(repository.findByIdGreaterThan(Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // These land after the rebuild started reading and are missing from what it read.
+                    index.index(book(2L, "Fresh Book", "Author"));
+                    index.remove(1L);
+                    return new SliceImpl<>(List.of(book(1L, "Stale Title", "Author")));
+                });
+
+        // when
+        index.rebuild();
+
+        // then
+        assertThat(index.search("fresh")).containsExactly(2L);
+        assertThat(index.search("stale")).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should refresh only the books written since the last refresh, minus the overlap")
+    public void refreshTest() {
+        // given
+        LocalDateTime built = LocalDateTime.of(2026, 10, 18, 10, 0);
+        Book original = book(1L, "Old Title", "Author");
+        original.setUpdatedAt(built);
+        Mockito.when(repository.findByIdGreaterThan(Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(original)));
+        index.rebuild();
+
+        Book updated = book(1L, "New Title", "Author");
+        updated.setUpdatedAt(built.plusMinutes(3));
+        Book created = book(2L, "Another Book", "Author");
+        created.setUpdatedAt(built.plusMinutes(4));
+        Mockito.when(repository.findByUpdatedAtGreaterThanEqual(Mockito.eq(built.minusMinutes(1)), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(updated, created)));
+
+        // when
+        index.refresh();
+
+        // then
+        assertThat(index.search("old")).isEmpty();
+        assertThat(index.search("title")).containsExactly(1L);
+        assertThat(index.search("book")).containsExactly(2L);
+        Mockito.verify(repository, Mockito.times(1)).findByIdGreaterThan(Mockito.anyLong(), Mockito.any(Pageable.class));
+    }
+
+    private static Book book(Long id, String title, String author) {
+        return Book.builder().id(id).title(title).author(author).build();
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.douglasliebl.library.api.service;
+
+import io.github.douglasliebl.library.api.dto.BookImportErrorDTO;
+import io.github.douglasliebl.library.api.dto.BookImportReportDTO;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
+import io.github.douglasliebl.library.api.search.BookSearchIndex;
+import io.github.douglasliebl.library.api.service.impl.BookImportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = {"app.books.import.chunk-size=2", "app.books.import.max-errors=4"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(BookImportServiceImpl.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+class BookImportServiceTest {
+
+    @Autowired
+    BookImportService service;
+
+    @SpyBean
+    BookRepository repository;
+
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @MockBean
+    BookAvailabilityIndex availabilityIndex;
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should import every valid NDJSON line in chunks")
+    public void importNdjsonTest() throws Exception {
+        // given
+        InputStream input = stream("""
+                {"title": "Book 1", "author": "Author", "isbn": "1"}
+                {"title": "Book 2", "author": "Author", "isbn": "2"}
+
+                {"title": "Book 3", "author": "Author", "isbn": "3"}
+                """);
+
+        // when
+        BookImportReportDTO report = service.importBooks(input, BookImportService.Format.NDJSON);
+
+        // then
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getRejected()).isZero();
+        assertThat(repository.findAll()).extracting(Book::getIsbn).containsExactlyInAnyOrder("1", "2", "3");
+        Mockito.verify(searchIndex, Mockito.times(3)).index(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Should report invalid, malformed and duplicated lines without stopping the import")
+    public void importCsvWithErrorsTest() throws Exception {
+        // given
+        repository.save(Book.builder().title("Existing").author("Author").isbn("1").build());
+        InputStream input = stream("""
+                title,author,isbn
+                Book 2,Author,2
+                Book 2 again,Author,2
+                "Book, with comma",Author,1
+                ,Author,3
+                "unterminated,Author,4
+                Book 5,"Author \"\"Quoted\"\"",5
+                """);
+
+        // when
+        BookImportReportDTO report = service.importBooks(input, BookImportService.Format.CSV);
+
+        // then
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(4);
+        assertThat(report.getErrors())
+                .extracting(BookImportErrorDTO::getLine, BookImportErrorDTO::getMessage)
+                .containsExactlyInAnyOrder(
+                        tuple(3L, "Duplicated isbn in import."),
+                        tuple(4L, "Isbn already exists."),
+                        tuple(5L, "title must not be empty"),
+                        tuple(6L, "Malformed line"));
+        assertThat(repository.findByIsbn("5")).get()
+                .extracting(Book::getAuthor)
+                .isEqualTo("Author \"Quoted\"");
+    }
+
+    @Test
+    @DisplayName("Should import the rest of a chunk and report the isbn another writer inserted since the check")
+    public void importConcurrentDuplicateTest() throws Exception {
+        // given
+        repository.save(Book.builder().title("Existing").author("Author").isbn("2").build());
+        // The pre-check misses it, as it would when the other insert commits right after it ran.
+        Mockito.doReturn(Set.of()).when(repository).findExistingIsbns(Mockito.anyCollection());
+        InputStream input = stream("""
+                {"title": "Book 1", "author": "Author", "isbn": "1"}
+                {"title": "Book 2", "author": "Author", "isbn": "2"}
+                {"title": "Book 3", "author": "Author", "isbn": "3"}
+                """);
+
+        // when
+        BookImportReportDTO report = service.importBooks(input, BookImportService.Format.NDJSON);
+
+        // then
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(report.getErrors())
+                .extracting(BookImportErrorDTO::getLine, BookImportErrorDTO::getIsbn, BookImportErrorDTO::getMessage)
+                .containsExactly(tuple(2L, "2", "Isbn already exists."));
+        assertThat(repository.findAll()).extracting(Book::getIsbn).containsExactlyInAnyOrder("1", "2", "3");
+        Mockito.verify(searchIndex, Mockito.times(2)).index(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Should reject NDJSON lines that are valid JSON but not objects, and list only the first errors")
+    public void importNdjsonNonObjectLinesTest() throws Exception {
+        // given
+        InputStream input = stream("""
+                null
+                {"title": "Book 1", "author": "Author", "isbn": "1"}
+                42
+                "Book"
+                [{"title": "Book 2", "author": "Author", "isbn": "2"}]
+                {"title": "Book 3",
+                """);
+
+        // when
+        BookImportReportDTO report = service.importBooks(input, BookImportService.Format.NDJSON);
+
+        // then
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(5);
+        assertThat(report.getErrors())
+                .extracting(BookImportErrorDTO::getLine, BookImportErrorDTO::getMessage)
+                .containsExactly(
+                        tuple(1L, "Malformed line"),
+                        tuple(3L, "Malformed line"),
+                        tuple(4L, "Malformed line"),
+                        tuple(5L, "Malformed line"));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.douglasliebl.library.api.service;
+
+import io.github.douglasliebl.library.api.config.CacheNames;
+import io.github.douglasliebl.library.api.dto.BookUpdateDTO;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
+import io.github.douglasliebl.library.api.search.BookSearchIndex;
+import io.github.douglasliebl.library.api.service.impl.BookServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = BookServiceCacheTest.CacheTestConfig.class)
+class BookServiceCacheTest {
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    BookRepository repository;
+
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @MockBean
+    BookAvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("Should hit the repository only once for repeated id lookups")
+    public void cacheGetByIdTest() {
+        // given
+        Book book = Book.builder().id(1L).title("My Book").author("Author").isbn("123").build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+
+        // when
+        service.getById(1L);
+        Optional<Book> cached = service.getById(1L);
+
+        // then
+        assertThat(cached).get().usingRecursiveComparison().isEqualTo(book);
+        assertThat(cached).get().isNotSameAs(book);
+        Mockito.verify(repository, Mockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should replace the cached book with the one reloaded from the repository")
+    public void reloadTest() {
+        // given
+        Mockito.when(repository.findById(1L))
+                .thenReturn(Optional.of(Book.builder().id(1L).title("Old").version(1L).build()))
+                .thenReturn(Optional.of(Book.builder().id(1L).title("New").version(2L).build()));
+        service.getById(1L);
+
+        // when
+        service.reload(1L);
+        Optional<Book> cached = service.getById(1L);
+
+        // then
+        assertThat(cached).get().extracting(Book::getTitle).isEqualTo("New");
+        Mockito.verify(repository, Mockito.times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache missing books")
+    public void notCacheMissingBookTest() {
+        // given
+        Mockito.when(repository.findByIsbn("123")).thenReturn(Optional.empty());
+
+        // when
+        service.getBookByIsbn("123");
+        Optional<Book> result = service.getBookByIsbn("123");
+
+        // then
+        assertThat(result).isEmpty();
+        Mockito.verify(repository, Mockito.times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Should evict cached entries when a book is updated")
+    public void evictOnUpdateTest() {
+        // given
+        Book book = Book.builder().id(1L).title("My Book").author("Author").isbn("123").build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+        Mockito.when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+        Mockito.when(repository.save(Mockito.any(Book.class))).thenReturn(book);
+        service.getById(1L);
+        service.getBookByIsbn("123");
+
+        // when
+        service.update(book, BookUpdateDTO.builder().title("New Title").author("Author").build());
+        service.getById(1L);
+        service.getBookByIsbn("123");
+
+        // then
+        Mockito.verify(repository, Mockito.times(2)).findById(1L);
+        Mockito.verify(repository, Mockito.times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Should leave the cached book untouched and evict it when an update fails")
+    public void evictOnFailedUpdateTest() {
+        // given
+        Book book = Book.builder().id(1L).title("My Book").author("Author").isbn("123").version(1L).build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+        Mockito.when(repository.save(Mockito.any(Book.class)))
+                .thenThrow(new OptimisticLockingFailureException("stale"));
+        Book cached = service.getById(1L).orElseThrow();
+
+        // when
+        Throwable failure = Assertions.catchThrowable(() ->
+                service.update(cached, BookUpdateDTO.builder().title("New Title").author("New Author").build()));
+
+        // then
+        assertThat(failure).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(cached.getTitle()).isEqualTo("My Book");
+        assertThat(cached.getAuthor()).isEqualTo("Author");
+        assertThat(cacheManager.getCache(CacheNames.BOOKS).get(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should evict cached entries when a book is deleted")
+    public void evictOnDeleteTest() {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+        service.getById(1L);
+
+        // when
+        service.delete(book);
+
+        // then
+        assertThat(cacheManager.getCache(CacheNames.BOOKS).get(1L)).isNull();
+    }
+
+    @Configuration
+    @EnableCaching
+    @Import(BookServiceImpl.class)
+    static class CacheTestConfig {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheNames.BOOKS, CacheNames.BOOKS_BY_ISBN);
+        }
+    }
+}
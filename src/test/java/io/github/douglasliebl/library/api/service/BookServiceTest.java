@@ -5,6 +5,8 @@ import io.github.douglasliebl.library.api.dto.BookUpdateDTO;
 import io.github.douglasliebl.library.api.exception.BusinessException;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
+import io.github.douglasliebl.library.api.search.BookSearchIndex;
 import io.github.douglasliebl.library.api.service.impl.BookServiceImpl;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +15,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -37,9 +41,15 @@ class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @MockBean
+    BookAvailabilityIndex availabilityIndex;
+
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.service = new BookServiceImpl(repository, searchIndex, availabilityIndex);
     }
 
     @Test
@@ -47,8 +57,7 @@ class BookServiceTest {
     public void saveBookTest() {
 
         Book book = createValidBook();
-        Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
-        Mockito.when(repository.save(book))
+        Mockito.when(repository.saveAndFlush(book))
                 .thenReturn(
                         Book.builder()
                                 .id(1L)
@@ -65,19 +74,23 @@ class BookServiceTest {
     }
 
     @Test
-    @DisplayName("Should throw an Exception when trying to register an already used isbn")
+    @DisplayName("Should map the unique isbn constraint violation on save to a business exception")
     public void shouldNotSaveBookWithDuplicatedISBN() {
-
+        // given
         Book book = createValidBook();
-        Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+        Mockito.when(repository.saveAndFlush(book))
+                .thenThrow(new DataIntegrityViolationException("ux_books_isbn"));
 
+        // when
         Throwable exception = Assertions.catchThrowable(() -> service.save(book));
 
+        // then
         assertThat(exception)
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("Isbn already exists.");
-
-        Mockito.verify(repository, Mockito.never()).save(book);
+        Mockito.verify(repository, Mockito.times(1)).saveAndFlush(book);
+        Mockito.verify(searchIndex, Mockito.never()).index(Mockito.any(Book.class));
+        Mockito.verify(availabilityIndex, Mockito.never()).add(Mockito.anyLong());
     }
 
     @Test
@@ -152,17 +165,43 @@ class BookServiceTest {
         // when
         Book updatedBook = createValidBook();
         updatedBook.setId(id);
-        Mockito.when(repository.save(actualBook)).thenReturn(updatedBook);
+        Mockito.when(repository.save(Mockito.any(Book.class))).thenReturn(updatedBook);
 
         // then
         BookDTO book = service.update(actualBook, updateData);
 
+        assertThat(actualBook.getTitle()).isNull();
+
         assertThat(book.getId()).isEqualTo(updatedBook.getId());
         assertThat(book.getTitle()).isEqualTo(updatedBook.getTitle());
         assertThat(book.getAuthor()).isEqualTo(updatedBook.getAuthor());
         assertThat(book.getIsbn()).isEqualTo(updatedBook.getIsbn());
     }
 
+    @Test
+    @DisplayName("Should update a book only while it has the expected version")
+    public void conditionalUpdateBookTest() {
+        // given
+        Book actualBook = Book.builder().id(11L).isbn("123").version(3L).build();
+        BookUpdateDTO updateData = BookUpdateDTO.builder().title("My Book").author("Author").build();
+        Mockito.when(repository.updateIfVersion(Mockito.eq(11L), Mockito.eq("My Book"), Mockito.eq("Author"), Mockito.eq(3L), Mockito.any()))
+                .thenReturn(1);
+        Mockito.when(repository.updateIfVersion(Mockito.eq(11L), Mockito.eq("My Book"), Mockito.eq("Author"), Mockito.eq(2L), Mockito.any()))
+                .thenReturn(0);
+
+        // when
+        BookDTO book = service.update(actualBook, updateData, 3L);
+        Throwable conflict = Assertions.catchThrowable(() -> service.update(actualBook, updateData, 2L));
+
+        // then
+        assertThat(book.getVersion()).isEqualTo(4L);
+        assertThat(book.getTitle()).isEqualTo("My Book");
+        assertThat(book.getIsbn()).isEqualTo("123");
+        assertThat(conflict).isInstanceOf(OptimisticLockingFailureException.class);
+        Mockito.verify(searchIndex, Mockito.times(1)).index(Mockito.any(Book.class));
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Book.class));
+    }
+
     @Test
     @DisplayName("Should not update a book")
     public void updateInvalidBook() {
@@ -222,6 +261,27 @@ class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Should return search results in rank order")
+    public void searchBooksTest() {
+        // given
+        Book first = Book.builder().id(2L).title("Java Concurrency").build();
+        Book second = Book.builder().id(1L).title("Java").build();
+        Book third = Book.builder().id(3L).title("Effective Java").build();
+        Mockito.when(searchIndex.search("java")).thenReturn(List.of(2L, 1L, 3L));
+        Mockito.when(repository.findAllById(List.of(2L, 1L)))
+                .thenReturn(List.of(second, first));
+
+        // when
+        Page<Book> result = service.search("java", PageRequest.of(0, 2));
+
+        // then
+        assertThat(result.getContent()).containsExactly(first, second);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.hasNext()).isTrue();
+        Mockito.verify(repository, Mockito.never()).findAllById(List.of(third.getId()));
+    }
+
     private static Book createValidBook() {
         return Book.builder().title("My Book").author("Author").isbn("123456").build();
     }
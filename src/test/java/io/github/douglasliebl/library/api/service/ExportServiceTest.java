@@ -0,0 +1,117 @@
+package io.github.douglasliebl.library.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.model.repository.LoanRepository;
+import io.github.douglasliebl.library.api.service.impl.ExportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ExportServiceImpl.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ExportServiceTest {
+
+    @Autowired
+    ExportService service;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should export every book as CSV in id order, quoting fields when needed")
+    public void exportBooksAsCsvTest() throws Exception {
+        // given
+        Book first = bookRepository.save(Book.builder().title("Plain").author("Author").isbn("1").build());
+        Book second = bookRepository.save(Book.builder().title("Comma, \"Quoted\"").author("Author").isbn("2").build());
+
+        // when
+        String csv = export(output -> service.exportBooks(output, ExportService.Format.CSV));
+
+        // then
+        assertThat(csv).isEqualTo("id,title,author,isbn\n"
+                + first.getId() + ",Plain,Author,1\n"
+                + second.getId() + ",\"Comma, \"\"Quoted\"\"\",Author,2\n");
+    }
+
+    @Test
+    @DisplayName("Should export every loan with its book as NDJSON")
+    public void exportLoansAsNdjsonTest() throws Exception {
+        // given
+        Book book = bookRepository.save(Book.builder().title("My Book").author("Author").isbn("123").build());
+        Loan returned = loanRepository.save(Loan.builder().book(book).customer("First").email("first@email.com")
+                .loanDate(LocalDate.of(2023, 1, 2)).returned(true).build());
+        Loan active = loanRepository.save(Loan.builder().book(book).customer("Second")
+                .loanDate(LocalDate.of(2023, 2, 3)).build());
+
+        // when
+        String ndjson = export(output -> service.exportLoans(output, ExportService.Format.NDJSON));
+
+        // then
+        List<String> lines = ndjson.lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines.get(0)).toString()).isEqualTo(objectMapper.readTree("""
+                {"id": %d, "customer": "First", "email": "first@email.com", "loanDate": "2023-01-02", "returned": true,
+                 "bookId": %d, "isbn": "123", "title": "My Book", "author": "Author"}
+                """.formatted(returned.getId(), book.getId())).toString());
+        assertThat(objectMapper.readTree(lines.get(1)).get("id").asLong()).isEqualTo(active.getId());
+        assertThat(objectMapper.readTree(lines.get(1)).get("email").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should export only the CSV header when there are no rows")
+    public void exportEmptyTest() throws Exception {
+        // when
+        String csv = export(output -> service.exportLoans(output, ExportService.Format.CSV));
+
+        // then
+        assertThat(csv).isEqualTo("id,customer,email,loanDate,returned,bookId,isbn,title,author\n");
+    }
+
+    private static String export(Export export) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        export.to(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private interface Export {
+        void to(ByteArrayOutputStream output) throws Exception;
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.douglasliebl.library.api.service;
+
+import io.github.douglasliebl.library.api.exception.BusinessException;
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.model.repository.LoanRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
+import io.github.douglasliebl.library.api.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LoanServiceImpl.class, BookAvailabilityIndex.class, JobMetrics.class, SimpleMeterRegistry.class})
+class LoanCheckoutConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    LoanService service;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    BookAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should create a single active loan when many threads check out the same book")
+    public void concurrentCheckoutTest() throws Exception {
+        // given
+        Book book = bookRepository.save(Book.builder().title("Popular").author("Author").isbn("123").build());
+        availabilityIndex.rebuild();
+        // A second instance stands for another replica: it shares the database but not the striped locks.
+        LoanService otherReplica = new LoanServiceImpl(loanRepository, bookRepository, availabilityIndex, transactionTemplate, meterRegistry);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                AtomicInteger rejected = new AtomicInteger();
+                List<Future<?>> checkouts = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    LoanService replica = i % 2 == 0 ? service : otherReplica;
+                    String customer = "Customer " + i;
+                    checkouts.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            replica.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+                        } catch (BusinessException e) {
+                            rejected.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+
+                // when
+                start.countDown();
+                for (Future<?> checkout : checkouts) {
+                    checkout.get(30, TimeUnit.SECONDS);
+                }
+
+                // then
+                List<Loan> active = loanRepository.findAll().stream()
+                        .filter(loan -> !Boolean.TRUE.equals(loan.getReturned()))
+                        .toList();
+                assertThat(active).hasSize(1);
+                assertThat(rejected).hasValue(THREADS - 1);
+
+                assertThat(bookRepository.findLoanedIds(List.of(book.getId()))).containsExactly(book.getId());
+                assertThat(availabilityIndex.availability(List.of(book.getId())).getLoaned()).containsExactly(book.getId());
+
+                Loan loan = active.get(0);
+                loan.setReturned(true);
+                service.update(loan);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loanRepository.count()).isEqualTo(ROUNDS);
+        assertThat(meterRegistry.counter("library.loans", "event", "created").count()).isEqualTo(ROUNDS);
+        assertThat(meterRegistry.counter("library.loans", "event", "returned").count()).isEqualTo(ROUNDS);
+    }
+}
@@ -1,28 +1,43 @@
 package io.github.douglasliebl.library.api.service;
 
+import io.github.douglasliebl.library.api.dto.LoanBatchDTO;
+import io.github.douglasliebl.library.api.dto.LoanBatchItemDTO;
 import io.github.douglasliebl.library.api.dto.LoanFilterDTO;
 import io.github.douglasliebl.library.api.exception.BusinessException;
 import io.github.douglasliebl.library.api.model.entity.Book;
 import io.github.douglasliebl.library.api.model.entity.Loan;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
 import io.github.douglasliebl.library.api.model.repository.LoanRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
 import io.github.douglasliebl.library.api.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -32,12 +47,25 @@ class LoanServiceTest {
 
     private LoanService service;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @MockBean
     private LoanRepository repository;
 
+    @MockBean
+    private BookRepository bookRepository;
+
+    @MockBean
+    private BookAvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
     @BeforeEach
     public void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.service = new LoanServiceImpl(repository, bookRepository, availabilityIndex,
+                new TransactionTemplate(transactionManager), meterRegistry);
     }
 
     @Test
@@ -61,10 +89,12 @@ class LoanServiceTest {
                 .build();
 
         // when
-        Mockito.when(repository.existsByBookAndReturnedIsFalseOrReturnedIsNull(book))
+        Mockito.when(bookRepository.existsByIdAndActiveLoanIdIsNotNull(1L))
                 .thenReturn(false);
         Mockito.when(repository.save(savingLoan))
                 .thenReturn(savedLoan);
+        Mockito.when(bookRepository.markLoaned(1L, 1L))
+                .thenReturn(1);
 
         Loan loan = service.save(savingLoan);
 
@@ -73,7 +103,133 @@ class LoanServiceTest {
         assertThat(loan.getBook()).isEqualTo(savedLoan.getBook());
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        Mockito.verify(bookRepository, Mockito.times(1)).markLoaned(1L, 1L);
+        Mockito.verify(availabilityIndex, Mockito.times(1)).markLoaned(1L);
+        assertThat(meterRegistry.counter("library.loans", "event", "created").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should check out a book while another one is being checked out, and reject the same book")
+    public void concurrentCheckoutOfDifferentBooksTest() throws Exception {
+        // given: 1 and 257 shared a lock stripe when checkouts were serialized on 256 stripes
+        Book first = Book.builder().id(1L).build();
+        Book second = Book.builder().id(257L).build();
+        CountDownLatch firstInFlight = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        Mockito.when(repository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> {
+            Loan loan = invocation.getArgument(0);
+            loan.setId(loan.getBook().getId());
+            if (loan.getBook() == first) {
+                firstInFlight.countDown();
+                assertThat(secondDone.await(5, TimeUnit.SECONDS)).isTrue();
+            }
+            return loan;
+        });
+        Mockito.when(bookRepository.markLoaned(Mockito.anyLong(), Mockito.anyLong())).thenReturn(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // when
+            Future<Loan> firstCheckout = executor.submit(() -> service.save(Loan.builder().book(first).build()));
+            assertThat(firstInFlight.await(5, TimeUnit.SECONDS)).isTrue();
+            Loan secondLoan = service.save(Loan.builder().book(second).build());
+            Throwable sameBook = catchThrowable(() -> service.save(Loan.builder().book(first).build()));
+            secondDone.countDown();
+
+            // then
+            assertThat(secondLoan.getId()).isEqualTo(257L);
+            assertThat(firstCheckout.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+            assertThat(sameBook).isInstanceOf(BusinessException.class).hasMessage("Book checkout in progress, try again.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should create the loans of a batch and report every isbn")
+    public void saveAllTest() {
+        // given
+        Book available = Book.builder().id(1L).isbn("1").build();
+        Book loaned = Book.builder().id(2L).isbn("2").build();
+        Map<String, Book> booksByIsbn = Map.of("1", available, "2", loaned);
+        LoanBatchDTO request = LoanBatchDTO.builder()
+                .customer("Customer")
+                .email("customer@email.com")
+                .isbns(List.of("1", "2", "3", "1"))
+                .build();
+
+        Mockito.when(bookRepository.findLoanedIds(Mockito.anyCollection())).thenReturn(Set.of(2L));
+        Mockito.when(bookRepository.markLoaned(List.of(10L))).thenReturn(1);
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Loan> loans = invocation.getArgument(0);
+            loans.forEach(loan -> loan.setId(10L));
+            return loans;
+        });
+
+        // when
+        List<LoanBatchItemDTO> items = service.saveAll(request, booksByIsbn);
+
+        // then
+        assertThat(items)
+                .extracting(LoanBatchItemDTO::getIsbn, LoanBatchItemDTO::getStatus, LoanBatchItemDTO::getLoanId)
+                .containsExactly(
+                        tuple("1", LoanBatchItemDTO.Status.CREATED, 10L),
+                        tuple("2", LoanBatchItemDTO.Status.ALREADY_LOANED, null),
+                        tuple("3", LoanBatchItemDTO.Status.NOT_FOUND, null),
+                        tuple("1", LoanBatchItemDTO.Status.DUPLICATE, null));
+        Mockito.verify(repository, Mockito.times(1)).saveAll(Mockito.argThat((List<Loan> loans) ->
+                loans.size() == 1 && loans.get(0).getBook() == available));
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Loan.class));
+        Mockito.verify(bookRepository, Mockito.never()).markLoaned(Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject the whole batch when another checkout took one of its books")
+    public void saveAllConcurrentCheckoutTest() {
+        // given
+        Map<String, Book> booksByIsbn = Map.of("1", Book.builder().id(1L).isbn("1").build(),
+                "2", Book.builder().id(2L).isbn("2").build());
+        LoanBatchDTO request = LoanBatchDTO.builder().customer("Customer").isbns(List.of("1", "2")).build();
+
+        Mockito.when(bookRepository.findLoanedIds(Mockito.anyCollection())).thenReturn(Set.of());
+        Mockito.when(bookRepository.markLoaned(List.of(10L, 11L))).thenReturn(1);
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Loan> loans = invocation.getArgument(0);
+            loans.get(0).setId(10L);
+            loans.get(1).setId(11L);
+            return loans;
+        });
+
+        // when
+        Throwable exception = catchThrowable(() -> service.saveAll(request, booksByIsbn));
 
+        // then
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned.");
+        Mockito.verify(availabilityIndex, Mockito.never()).markLoaned(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Should mark the loans of a batch as returned")
+    public void returnAllTest() {
+        // given
+        Loan open = Loan.builder().id(1L).book(Book.builder().id(5L).build()).build();
+        Loan returned = Loan.builder().id(2L).returned(true).build();
+        Mockito.when(repository.findAllById(Mockito.anyIterable())).thenReturn(List.of(open, returned));
+
+        // when
+        List<LoanBatchItemDTO> items = service.returnAll(List.of(1L, 2L, 3L, 1L));
+
+        // then
+        assertThat(items)
+                .extracting(LoanBatchItemDTO::getLoanId, LoanBatchItemDTO::getStatus)
+                .containsExactly(
+                        tuple(1L, LoanBatchItemDTO.Status.RETURNED),
+                        tuple(2L, LoanBatchItemDTO.Status.ALREADY_RETURNED),
+                        tuple(3L, LoanBatchItemDTO.Status.NOT_FOUND),
+                        tuple(1L, LoanBatchItemDTO.Status.DUPLICATE));
+        assertThat(open.getReturned()).isTrue();
+        Mockito.verify(bookRepository, Mockito.times(1)).markReturned(List.of(1L));
+        Mockito.verify(availabilityIndex, Mockito.times(1)).markAvailable(5L);
     }
 
     @Test
@@ -88,7 +244,7 @@ class LoanServiceTest {
                 .build();
 
         // when
-        Mockito.when(repository.existsByBookAndReturnedIsFalseOrReturnedIsNull(book))
+        Mockito.when(bookRepository.existsByIdAndActiveLoanIdIsNotNull(1L))
                 .thenReturn(true);
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
@@ -100,6 +256,56 @@ class LoanServiceTest {
         Mockito.verify(repository, Mockito.never()).save(savingLoan);
     }
 
+    @Test
+    @DisplayName("Should throw an exception when another checkout marked the book first")
+    public void concurrentlyMarkedBookTest() {
+        // given
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder()
+                .book(book)
+                .customer("Customer")
+                .loanDate(LocalDate.now())
+                .build();
+
+        // when
+        Mockito.when(bookRepository.existsByIdAndActiveLoanIdIsNotNull(1L))
+                .thenReturn(false);
+        Mockito.when(repository.save(savingLoan))
+                .thenReturn(Loan.builder().id(2L).book(book).build());
+        Mockito.when(bookRepository.markLoaned(1L, 2L))
+                .thenReturn(0);
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        // then
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book already loaned.");
+    }
+
+    @Test
+    @DisplayName("Should throw an exception when another instance loaned the book first")
+    public void concurrentlyLoanedBookTest() {
+        // given
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder()
+                .book(book)
+                .customer("Customer")
+                .loanDate(LocalDate.now())
+                .build();
+
+        // when
+        Mockito.when(bookRepository.existsByIdAndActiveLoanIdIsNotNull(1L))
+                .thenReturn(false);
+        Mockito.when(repository.save(savingLoan))
+                .thenThrow(new DataIntegrityViolationException("ux_loan_active_book"));
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        // then
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book already loaned.");
+    }
+
     @Test
     @DisplayName("Should get a loan details")
     public void getLoansDetailsTest() {
@@ -144,12 +350,32 @@ class LoanServiceTest {
         // when
         Mockito.when(repository.save(loan))
                 .thenReturn(loan);
+        Mockito.when(bookRepository.markReturned(List.of(1L))).thenReturn(1);
 
         Loan updatedLoan = service.update(loan);
 
         // then
         assertThat(updatedLoan.getReturned()).isTrue();
         Mockito.verify(repository, Mockito.times(1)).save(loan);
+        Mockito.verify(bookRepository, Mockito.times(1)).markReturned(List.of(1L));
+        Mockito.verify(availabilityIndex, Mockito.times(1)).markAvailable(1L);
+        assertThat(meterRegistry.counter("library.loans", "event", "returned").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not count a loan that was already returned as returned again")
+    public void updateReturnedLoanTest() {
+        // given
+        Loan loan = Loan.builder().id(1L).book(Book.builder().id(1L).build()).returned(true).build();
+        Mockito.when(repository.save(loan)).thenReturn(loan);
+        Mockito.when(bookRepository.markReturned(List.of(1L))).thenReturn(0);
+
+        // when
+        service.update(loan);
+
+        // then
+        Mockito.verify(availabilityIndex, Mockito.never()).markAvailable(Mockito.anyLong());
+        assertThat(meterRegistry.counter("library.loans", "event", "returned").count()).isZero();
     }
 
     @Test
@@ -0,0 +1,258 @@
+package io.github.douglasliebl.library.api.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.github.douglasliebl.library.api.config.ExecutionConfig;
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.github.douglasliebl.library.api.model.entity.MailOutbox;
+import io.github.douglasliebl.library.api.model.entity.MailStatus;
+import io.github.douglasliebl.library.api.model.repository.MailOutboxRepository;
+import io.github.douglasliebl.library.api.service.impl.EmailServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+        "app.mail.default-mailSender=library@email.com",
+        "app.mail.outbox.max-attempts=2",
+        "app.mail.outbox.initial-backoff=PT1M"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MailOutboxWorker.class, EmailServiceImpl.class, ExecutionConfig.class, JobMetrics.class, SimpleMeterRegistry.class,
+        MailOutboxWorkerTest.MailTestConfig.class})
+class MailOutboxWorkerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    @Autowired
+    MailOutboxWorker worker;
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    MailOutboxRepository repository;
+
+    @Autowired
+    JavaMailSenderImpl mailSender;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        meterRegistry.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should queue mails with the business transaction and deliver them later")
+    public void deliverQueuedMailTest() throws Exception {
+        // given
+        transactionTemplate.executeWithoutResult(status -> emailService.sendMail("Late!", "customer@email.com"));
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+
+        // when
+        int delivered = worker.drainOnce();
+
+        // then
+        assertThat(delivered).isEqualTo(1);
+        MimeMessage[] messages = greenMail.getReceivedMessages();
+        assertThat(messages).hasSize(1);
+        assertThat(messages[0].getAllRecipients()[0].toString()).isEqualTo("customer@email.com");
+        assertThat(messages[0].getSubject()).isEqualTo("Book delayed.");
+        MailOutbox mail = repository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.SENT);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getSentAt()).isNotNull();
+        assertThat(worker.drainOnce()).isZero();
+        assertThat(meterRegistry.counter("library.mails", "outcome", "sent").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("library.mail.delivery", "outcome", "sent").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not queue mails when the business transaction rolls back")
+    public void rollbackTest() {
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendMail("Late!", "customer@email.com");
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should retry with backoff and give up after the last attempt")
+    public void retryAndFailTest() {
+        // given
+        mailSender.setPort(1);
+        transactionTemplate.executeWithoutResult(status -> emailService.sendMail("Late!", "customer@email.com"));
+
+        // when
+        worker.drainOnce();
+
+        // then
+        MailOutbox mail = repository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(30));
+        assertThat(mail.getLastError()).isNotBlank();
+        assertThat(worker.drainOnce()).isZero();
+
+        // when
+        mail.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        repository.save(mail);
+        worker.drainOnce();
+
+        // then
+        mail = repository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.FAILED);
+        assertThat(mail.getAttempts()).isEqualTo(2);
+        assertThat(meterRegistry.counter("library.mails", "outcome", "failed").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("library.mails", "outcome", "exhausted").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should record any runtime failure of a mail as a failed attempt")
+    public void runtimeFailureTest() {
+        // given
+        JavaMailSender failingSender = Mockito.mock(JavaMailSender.class);
+        Mockito.doThrow(new IllegalStateException("Session closed"))
+                .when(failingSender).send(Mockito.any(SimpleMailMessage.class));
+        ReflectionTestUtils.setField(worker, "javaMailSender", failingSender);
+        transactionTemplate.executeWithoutResult(status -> emailService.sendMail("Late!", "customer@email.com"));
+
+        // when
+        try {
+            worker.drainOnce();
+        } finally {
+            ReflectionTestUtils.setField(worker, "javaMailSender", mailSender);
+        }
+
+        // then
+        MailOutbox mail = repository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(30));
+        assertThat(mail.getLastError()).isEqualTo("Session closed");
+        assertThat(meterRegistry.counter("library.mails", "outcome", "failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should purge only the sent mails older than the retention")
+    public void purgeSentTest() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox oldSent = repository.save(sentMail(now.minusDays(8)));
+        MailOutbox recentSent = repository.save(sentMail(now.minusDays(1)));
+        MailOutbox oldFailed = repository.save(MailOutbox.builder()
+                .recipient("customer@email.com")
+                .status(MailStatus.FAILED)
+                .attempts(2)
+                .nextAttemptAt(now.minusDays(8))
+                .createdAt(now.minusDays(8))
+                .build());
+
+        // when
+        worker.purgeSent();
+
+        // then
+        assertThat(repository.findAll()).extracting(MailOutbox::getId)
+                .containsExactlyInAnyOrder(recentSent.getId(), oldFailed.getId())
+                .doesNotContain(oldSent.getId());
+    }
+
+    @Test
+    @DisplayName("Should reclaim mails whose sending lease expired")
+    public void expiredLeaseTest() {
+        // given
+        LocalDateTime past = LocalDateTime.now().minusMinutes(10);
+        repository.save(MailOutbox.builder()
+                .recipient("customer@email.com")
+                .body("Late!")
+                .status(MailStatus.SENDING)
+                .attempts(1)
+                .nextAttemptAt(past)
+                .lockedUntil(past)
+                .createdAt(past)
+                .build());
+
+        // when
+        int delivered = worker.drainOnce();
+
+        // then
+        assertThat(delivered).isEqualTo(1);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(repository.countByStatus(MailStatus.SENT)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should double the backoff on every attempt up to the maximum")
+    public void backoffTest() {
+        assertThat(worker.backoff(1)).hasMinutes(1);
+        assertThat(worker.backoff(3)).hasMinutes(4);
+        assertThat(worker.backoff(30)).hasHours(1);
+    }
+
+    private static MailOutbox sentMail(LocalDateTime sentAt) {
+        return MailOutbox.builder()
+                .recipient("customer@email.com")
+                .status(MailStatus.SENT)
+                .attempts(1)
+                .nextAttemptAt(sentAt)
+                .createdAt(sentAt)
+                .sentAt(sentAt)
+                .build();
+    }
+
+    @TestConfiguration
+    static class MailTestConfig {
+
+        @Bean
+        public JavaMailSenderImpl javaMailSender() {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            return mailSender;
+        }
+    }
+}
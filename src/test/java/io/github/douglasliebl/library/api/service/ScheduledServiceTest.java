@@ -0,0 +1,198 @@
+package io.github.douglasliebl.library.api.service;
+
+import io.github.douglasliebl.library.api.metrics.JobMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ScheduledServiceTest {
+
+    private static final LocalDateTime MIDNIGHT = LocalDateTime.of(2026, 10, 18, 0, 0);
+
+    private ScheduledService service;
+
+    @MockBean
+    private LoanService loanService;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private SchedulerLockService lockService;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new ScheduledService(loanService, emailService, lockService,
+                transactionManager, new JobMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "message", "Late!");
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "partitions", 1);
+        ReflectionTestUtils.setField(service, "lockAtMostFor", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(MIDNIGHT.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        Mockito.when(lockService.runLocked(Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(3).run();
+                    return true;
+                });
+    }
+
+    @Test
+    @DisplayName("Should queue one mail per late customer, committing every chunk, and close the stream")
+    public void sendMailToLateLoansTest() {
+        // given
+        AtomicBoolean closed = new AtomicBoolean();
+        Mockito.when(loanService.streamLateLoanEmails(0, 1)).thenReturn(
+                Stream.of("a@email.com", "a@email.com", "b@email.com", "c@email.com", "d@email.com", "e@email.com")
+                        .onClose(() -> closed.set(true)));
+
+        // when
+        service.sendMailToLateLoans();
+
+        // then
+        Mockito.verify(emailService, Mockito.times(5)).sendMail(Mockito.eq("Late!"), Mockito.anyString());
+        Mockito.verify(emailService, Mockito.times(1)).sendMail("Late!", "a@email.com");
+        Mockito.verify(transactionManager, Mockito.times(3)).getTransaction(Mockito.argThat(chunkTransaction()));
+        Mockito.verify(transactionManager, Mockito.times(4)).commit(Mockito.any());
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep the chunks already committed when a later chunk fails")
+    public void sendMailToLateLoansFailureTest() {
+        // given
+        Mockito.when(loanService.streamLateLoanEmails(0, 1))
+                .thenReturn(Stream.of("a@email.com", "b@email.com", "c@email.com", "d@email.com", "e@email.com"));
+        Mockito.doThrow(new IllegalStateException("Outbox unavailable")).when(emailService).sendMail("Late!", "c@email.com");
+
+        // when
+        Throwable exception = catchThrowable(() -> service.sendMailToLateLoans());
+
+        // then
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(Mockito.any());
+        Mockito.verify(transactionManager, Mockito.times(2)).rollback(Mockito.any());
+        Mockito.verify(emailService, Mockito.never()).sendMail("Late!", "e@email.com");
+    }
+
+    @Test
+    @DisplayName("Should only run the partitions whose lock was acquired")
+    public void sendMailToLateLoansPartitionsTest() {
+        // given
+        ReflectionTestUtils.setField(service, "partitions", 3);
+        Mockito.when(lockService.runLocked(Mockito.eq("late-loans-p1"), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(false);
+        Mockito.when(loanService.streamLateLoanEmails(Mockito.anyInt(), Mockito.eq(3)))
+                .thenAnswer(invocation -> Stream.of("p" + invocation.getArgument(0) + "@email.com"));
+
+        // when
+        service.sendMailToLateLoans();
+
+        // then
+        Mockito.verify(emailService).sendMail("Late!", "p0@email.com");
+        Mockito.verify(emailService).sendMail("Late!", "p2@email.com");
+        Mockito.verify(loanService, Mockito.never()).streamLateLoanEmails(1, 3);
+        Mockito.verify(lockService).runLocked(Mockito.eq("late-loans-p0"), Mockito.eq(Duration.ofHours(1)),
+                Mockito.eq(Duration.ofHours(23).plusMinutes(59)), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should not run a partition again when a slower replica reaches it after another one finished it")
+    public void sendMailToLateLoansReplicasTest() {
+        // given: replica B finishes p1 eight minutes in, while replica A is still on p0 until minute ten
+        AtomicReference<LocalDateTime> now = new AtomicReference<>(MIDNIGHT);
+        SchedulerLockService locks = new InMemoryLocks(now::get);
+        ScheduledService replicaA = replica(locks);
+        ScheduledService replicaB = replica(locks);
+        Mockito.when(loanService.streamLateLoanEmails(Mockito.anyInt(), Mockito.eq(2))).thenAnswer(invocation -> {
+            int partition = invocation.getArgument(0);
+            if (partition == 0) {
+                replicaB.sendMailToLateLoans();
+                now.set(MIDNIGHT.plusMinutes(10));
+            } else {
+                now.set(MIDNIGHT.plusMinutes(8));
+            }
+            return Stream.of("p" + partition + "@email.com");
+        });
+
+        // when
+        replicaA.sendMailToLateLoans();
+
+        // then
+        Mockito.verify(emailService, Mockito.times(1)).sendMail("Late!", "p0@email.com");
+        Mockito.verify(emailService, Mockito.times(1)).sendMail("Late!", "p1@email.com");
+    }
+
+    private ScheduledService replica(SchedulerLockService locks) {
+        ScheduledService replica = new ScheduledService(loanService, emailService, locks,
+                transactionManager, new JobMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(replica, "message", "Late!");
+        ReflectionTestUtils.setField(replica, "chunkSize", 2);
+        ReflectionTestUtils.setField(replica, "partitions", 2);
+        ReflectionTestUtils.setField(replica, "lockAtMostFor", Duration.ofHours(1));
+        ReflectionTestUtils.setField(replica, "clock", Clock.fixed(MIDNIGHT.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        return replica;
+    }
+
+    /**
+     * The lease rules of the database-backed service, on a clock the test moves.
+     */
+    private static final class InMemoryLocks implements SchedulerLockService {
+
+        private final Map<String, LocalDateTime> lockedUntil = new HashMap<>();
+        private final Supplier<LocalDateTime> clock;
+
+        InMemoryLocks(Supplier<LocalDateTime> clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public boolean runLocked(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+            LocalDateTime lockedAt = clock.get();
+            if (lockedUntil.getOrDefault(name, LocalDateTime.MIN).isAfter(lockedAt)) {
+                return false;
+            }
+            lockedUntil.put(name, lockedAt.plus(lockAtMostFor));
+            try {
+                task.run();
+            } finally {
+                LocalDateTime minimum = lockedAt.plus(lockAtLeastFor);
+                lockedUntil.put(name, clock.get().isAfter(minimum) ? clock.get() : minimum);
+            }
+            return true;
+        }
+    }
+
+    private static ArgumentMatcher<TransactionDefinition> chunkTransaction() {
+        return definition -> definition != null
+                && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW;
+    }
+}
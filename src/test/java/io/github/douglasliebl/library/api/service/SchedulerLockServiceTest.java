@@ -0,0 +1,122 @@
+package io.github.douglasliebl.library.api.service;
+
+import io.github.douglasliebl.library.api.model.entity.SchedulerLock;
+import io.github.douglasliebl.library.api.model.repository.SchedulerLockRepository;
+import io.github.douglasliebl.library.api.service.impl.SchedulerLockServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SchedulerLockServiceTest {
+
+    @Autowired
+    SchedulerLockRepository repository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    SchedulerLockService replicaA;
+    SchedulerLockService replicaB;
+
+    @BeforeEach
+    public void setUp() {
+        replicaA = replica("replica-a");
+        replicaB = replica("replica-b");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should skip the task while another replica holds the lock")
+    public void heldLockTest() {
+        // given
+        AtomicBoolean ranOnB = new AtomicBoolean();
+
+        // when
+        boolean ranOnA = replicaA.runLocked("job", Duration.ofMinutes(10), Duration.ZERO,
+                () -> ranOnB.set(replicaB.runLocked("job", Duration.ofMinutes(10), Duration.ZERO, () -> { })));
+
+        // then
+        assertThat(ranOnA).isTrue();
+        assertThat(ranOnB).isFalse();
+        assertThat(repository.findById("job")).get().extracting(SchedulerLock::getLockedBy).isEqualTo("replica-a");
+    }
+
+    @Test
+    @DisplayName("Should release the lock when the task ends, but not before the minimum hold")
+    public void releaseTest() {
+        // given
+        replicaA.runLocked("released", Duration.ofMinutes(10), Duration.ZERO, () -> { });
+        replicaA.runLocked("held", Duration.ofMinutes(10), Duration.ofMinutes(5), () -> { });
+
+        // then
+        assertThat(replicaB.runLocked("released", Duration.ofMinutes(10), Duration.ZERO, () -> { })).isTrue();
+        assertThat(replicaB.runLocked("held", Duration.ofMinutes(10), Duration.ZERO, () -> { })).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should take over a lock whose lease expired")
+    public void expiredLeaseTest() {
+        // given
+        LocalDateTime past = LocalDateTime.now().minusHours(2);
+        repository.save(SchedulerLock.builder()
+                .name("job")
+                .lockedAt(past)
+                .lockedUntil(past.plusHours(1))
+                .lockedBy("crashed-replica")
+                .build());
+
+        // when
+        boolean ran = replicaB.runLocked("job", Duration.ofMinutes(10), Duration.ZERO, () -> { });
+
+        // then
+        assertThat(ran).isTrue();
+        assertThat(repository.findById("job")).get().extracting(SchedulerLock::getLockedBy).isEqualTo("replica-b");
+    }
+
+    @Test
+    @DisplayName("Should release the lock even when the task fails")
+    public void failingTaskTest() {
+        // when
+        try {
+            replicaA.runLocked("job", Duration.ofMinutes(10), Duration.ZERO, () -> {
+                throw new IllegalStateException("boom");
+            });
+        } catch (IllegalStateException ignored) {
+        }
+
+        // then
+        assertThat(replicaB.runLocked("job", Duration.ofMinutes(10), Duration.ZERO, () -> { })).isTrue();
+    }
+
+    private SchedulerLockService replica(String instanceId) {
+        SchedulerLockServiceImpl service = new SchedulerLockServiceImpl(repository, transactionTemplate);
+        ReflectionTestUtils.setField(service, "instanceId", instanceId);
+        return service;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.douglasliebl.library.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints the change of every benchmark score between two JMH JSON result files, typically the results
+ * of the same benchmarks on two commits: {@code mvn -Pbenchmark exec:exec@compare}.
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = scores(new File(args[0]));
+        Map<String, JsonNode> current = scores(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %9s %s%n", "benchmark", "baseline", "current", "change", "unit");
+        current.forEach((name, result) -> {
+            double score = result.path("score").asDouble();
+            String unit = result.path("scoreUnit").asText();
+            JsonNode before = baseline.get(name);
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s %s%n", name, "-", score, "new", unit);
+                return;
+            }
+            double previous = before.path("score").asDouble();
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s%n", name, previous, score,
+                    (score - previous) / previous * 100, unit);
+        });
+    }
+
+    private static Map<String, JsonNode> scores(File results) throws IOException {
+        Map<String, JsonNode> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(results)) {
+            StringBuilder name = new StringBuilder(run.path("benchmark").asText()
+                    .replace("io.github.douglasliebl.library.benchmark.", ""));
+            run.path("params").fields().forEachRemaining(param ->
+                    name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            scores.put(name.toString(), run.path("primaryMetric"));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.douglasliebl.library.benchmark;
+
+import io.github.douglasliebl.library.api.model.entity.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the query-by-example filter {@code BookServiceImpl.find} builds for every listing: a matcher
+ * built on each call, as the service used to, against the shared immutable matcher it now reuses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFilterBenchmark {
+
+    private static final ExampleMatcher FILTER_MATCHER = ExampleMatcher
+            .matching()
+            .withIgnoreCase()
+            .withIgnoreNullValues()
+            .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING);
+
+    private Book filter;
+
+    @Setup
+    public void setUp() {
+        filter = Book.builder().author("Author").build();
+    }
+
+    @Benchmark
+    public Example<Book> matcherPerCall() {
+        return Example.of(filter,
+                ExampleMatcher
+                        .matching()
+                        .withIgnoreCase()
+                        .withIgnoreNullValues()
+                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+    }
+
+    @Benchmark
+    public Example<Book> sharedMatcher() {
+        return Example.of(filter, FILTER_MATCHER);
+    }
+}
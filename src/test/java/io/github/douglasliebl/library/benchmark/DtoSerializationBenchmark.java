@@ -0,0 +1,71 @@
+package io.github.douglasliebl.library.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.douglasliebl.library.api.dto.LoanDTO;
+import io.github.douglasliebl.library.api.dto.PageDTO;
+import io.github.douglasliebl.library.api.mapper.BookMapper;
+import io.github.douglasliebl.library.api.mapper.LoanMapper;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson serialization of loans with the ObjectMapper settings of the application: a
+ * single {@link LoanDTO}, and a 20-row loan page as {@code PageImpl} and as the {@link PageDTO} envelope.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private ObjectMapper objectMapper;
+    private LoanMapper loanMapper;
+    private LoanDTO loanDTO;
+    private Page<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        loanMapper = new LoanMapper(new BookMapper());
+
+        List<Loan> content = new ArrayList<>(PAGE_SIZE);
+        for (long i = 0; i < PAGE_SIZE; i++) {
+            Book book = Book.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build();
+            content.add(Loan.builder().id(i).customer("Customer " + i).email("customer" + i + "@email.com")
+                    .book(book).loanDate(LocalDate.now()).build());
+        }
+        loans = new PageImpl<>(content, PageRequest.of(0, PAGE_SIZE), 1_000);
+        loanDTO = loanMapper.toDto(content.get(0));
+    }
+
+    @Benchmark
+    public byte[] loan() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanDTO);
+    }
+
+    @Benchmark
+    public byte[] loanPageImpl() throws JsonProcessingException {
+        List<LoanDTO> content = loans.stream().map(loanMapper::toDto).toList();
+        return objectMapper.writeValueAsBytes(new PageImpl<>(content, loans.getPageable(), loans.getTotalElements()));
+    }
+
+    @Benchmark
+    public byte[] loanPageDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(PageDTO.of(loans, loanMapper::toDto));
+    }
+}
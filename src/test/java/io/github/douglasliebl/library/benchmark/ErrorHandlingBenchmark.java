@@ -0,0 +1,60 @@
+package io.github.douglasliebl.library.benchmark;
+
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.exception.BusinessException;
+import io.github.douglasliebl.library.api.exception.ErrorDetails;
+import io.github.douglasliebl.library.api.exception.GlobalExceptionHandler;
+import io.github.douglasliebl.library.api.resource.BookController;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the error responses built by {@link GlobalExceptionHandler}, including the cost of creating
+ * the exception itself, for a validation failure with three field errors, a business rule and a
+ * response status.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorHandlingBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MethodParameter parameter;
+    private BindingResult bindingResult;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        parameter = new MethodParameter(BookController.class.getMethod("createBook", BookDTO.class), 0);
+        handler = new GlobalExceptionHandler();
+        bindingResult = new BeanPropertyBindingResult(new BookDTO(), "bookDTO");
+        bindingResult.rejectValue("title", "NotEmpty", "must not be empty");
+        bindingResult.rejectValue("author", "NotEmpty", "must not be empty");
+        bindingResult.rejectValue("isbn", "NotEmpty", "must not be empty");
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorDetails> validationErrors() {
+        return handler.handleMethodArgumentNotValidException(new MethodArgumentNotValidException(parameter, bindingResult));
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorDetails> businessException() {
+        return handler.handleBusinessException(new BusinessException("Book already loaned."));
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorDetails> responseStatusException() {
+        return handler.handleResponseStatusException(new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found"));
+    }
+}
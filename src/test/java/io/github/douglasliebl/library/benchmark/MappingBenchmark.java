@@ -0,0 +1,106 @@
+package io.github.douglasliebl.library.benchmark;
+
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.LoanDTO;
+import io.github.douglasliebl.library.api.mapper.BookMapper;
+import io.github.douglasliebl.library.api.mapper.LoanMapper;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written mappers against the ModelMapper calls the controllers used to make,
+ * for a single row and for a 100-row page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+    private LoanMapper loanMapper;
+
+    private Book book;
+    private BookDTO bookDTO;
+    private Loan loan;
+    private List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapper();
+        loanMapper = new LoanMapper(bookMapper);
+
+        book = Book.builder().id(1L).title("My Book").author("Author").isbn("123456").build();
+        bookDTO = BookDTO.builder().title("My Book").author("Author").isbn("123456").build();
+        loan = Loan.builder().id(1L).customer("Customer").email("customer@email.com")
+                .book(book).loanDate(LocalDate.now()).build();
+
+        loans = new ArrayList<>(PAGE_SIZE);
+        for (long i = 0; i < PAGE_SIZE; i++) {
+            Book pageBook = Book.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build();
+            loans.add(Loan.builder().id(i).customer("Customer " + i).email("customer" + i + "@email.com")
+                    .book(pageBook).loanDate(LocalDate.now()).build());
+        }
+    }
+
+    @Benchmark
+    public BookDTO modelMapperBookToDto() {
+        return modelMapper.map(book, BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO mapperBookToDto() {
+        return bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book modelMapperDtoToBook() {
+        return modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Benchmark
+    public Book mapperDtoToBook() {
+        return bookMapper.toEntity(bookDTO);
+    }
+
+    @Benchmark
+    public LoanDTO modelMapperLoanToDto() {
+        return modelMapperLoan(loan);
+    }
+
+    @Benchmark
+    public LoanDTO mapperLoanToDto() {
+        return loanMapper.toDto(loan);
+    }
+
+    @Benchmark
+    public List<LoanDTO> modelMapperLoanPage() {
+        return loans.stream().map(this::modelMapperLoan).toList();
+    }
+
+    @Benchmark
+    public List<LoanDTO> mapperLoanPage() {
+        return loans.stream().map(loanMapper::toDto).toList();
+    }
+
+    private LoanDTO modelMapperLoan(Loan entity) {
+        BookDTO loanedBook = modelMapper.map(entity.getBook(), BookDTO.class);
+        LoanDTO dto = modelMapper.map(entity, LoanDTO.class);
+        dto.setIsbn(loanedBook.getIsbn());
+        dto.setBook(loanedBook);
+        return dto;
+    }
+}
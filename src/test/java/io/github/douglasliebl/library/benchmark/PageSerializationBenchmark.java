@@ -0,0 +1,91 @@
+package io.github.douglasliebl.library.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.douglasliebl.library.api.dto.BookDTO;
+import io.github.douglasliebl.library.api.dto.PageDTO;
+import io.github.douglasliebl.library.api.mapper.BookMapper;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the CPU cost of writing a page of books as a serialized {@code PageImpl}, the format the
+ * controllers used to answer with, against the compact {@link PageDTO} envelope, and prints the size of
+ * each body, plain and gzipped, when the run ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "200"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private BookMapper bookMapper;
+    private Page<Book> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookMapper = new BookMapper();
+
+        List<Book> books = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++) {
+            books.add(Book.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build());
+        }
+        page = new PageImpl<>(books, PageRequest.of(3, pageSize, Sort.by("title")), 10_000);
+    }
+
+    @Benchmark
+    public byte[] pageImpl() throws JsonProcessingException {
+        List<BookDTO> content = page.stream().map(bookMapper::toDto).toList();
+        return objectMapper.writeValueAsBytes(new PageImpl<>(content, page.getPageable(), page.getTotalElements()));
+    }
+
+    @Benchmark
+    public byte[] compactPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(PageDTO.of(page, bookMapper::toDto));
+    }
+
+    @Benchmark
+    public byte[] pageImplGzip() throws IOException {
+        return gzip(pageImpl());
+    }
+
+    @Benchmark
+    public byte[] compactPageGzip() throws IOException {
+        return gzip(compactPage());
+    }
+
+    @TearDown
+    public void printSizes() throws IOException {
+        byte[] pageImpl = pageImpl();
+        byte[] compactPage = compactPage();
+        System.out.printf("%npage size %d: PageImpl %d bytes (%d gzipped), PageDTO %d bytes (%d gzipped)%n",
+                pageSize, pageImpl.length, gzip(pageImpl).length, compactPage.length, gzip(compactPage).length);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
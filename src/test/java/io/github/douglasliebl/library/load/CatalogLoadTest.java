@@ -0,0 +1,286 @@
+package io.github.douglasliebl.library.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.douglasliebl.library.MsBooksApplication;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.search.BookAvailabilityIndex;
+import io.github.douglasliebl.library.api.search.BookSearchIndex;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application on an in-memory H2 database, seeds a catalog and drives the endpoint mix of the
+ * Postman collection against it in a closed loop: catalog search, get by id, create loan and return loan.
+ * Prints the throughput, error rate and latency percentiles of every endpoint and writes their HDR
+ * histograms to {@code load.output}, so runs on the same box can be compared. Excluded from the default
+ * build; run it with {@code mvn -Pload-test test -Dtest=CatalogLoadTest}. Tune it with the
+ * {@code load.concurrency}, {@code load.warmup}, {@code load.duration}, {@code load.books},
+ * {@code load.mix} (weights, e.g. {@code search:50,get:30,loan:10,return:10}), {@code load.output},
+ * {@code load.max-error-rate} and {@code load.min-throughput} system properties; the last one fails
+ * the run below the given requests per second.
+ */
+@Tag("load")
+class CatalogLoadTest {
+
+    private final int concurrency = Integer.getInteger("load.concurrency", 32);
+    private final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+    private final Duration duration = Duration.parse(System.getProperty("load.duration", "PT20S"));
+    private final int books = Integer.getInteger("load.books", 5000);
+    private final Map<Endpoint, Integer> mix = parseMix(System.getProperty("load.mix", "search:50,get:30,loan:10,return:10"));
+    private final Path output = Path.of(System.getProperty("load.output", "target/load"));
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0"));
+    private final double minThroughput = Double.parseDouble(System.getProperty("load.min-throughput", "0"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    enum Endpoint { SEARCH, GET, LOAN, RETURN }
+
+    @Test
+    @DisplayName("Should serve the catalog and loan endpoint mix and report throughput, errors and latency per endpoint")
+    public void catalogLoad() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MsBooksApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:catalog-load;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=warn")
+                .run()) {
+            Catalog catalog = seed(context.getBean(BookRepository.class));
+            context.getBean(BookSearchIndex.class).rebuild();
+            context.getBean(BookAvailabilityIndex.class).rebuild();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(concurrency);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            try {
+                drive(client, port, catalog, warmup, new Stats());
+
+                Stats stats = new Stats();
+                long start = System.nanoTime();
+                drive(client, port, catalog, duration, stats);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                report(stats, seconds);
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void drive(HttpClient client, int port, Catalog catalog, Duration length, Stats stats) throws InterruptedException {
+        long deadline = System.nanoTime() + length.toNanos();
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            users.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    call(client, port, catalog, nextEndpoint(), stats);
+                }
+            });
+        }
+        users.shutdown();
+        users.awaitTermination(length.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Issues one request. A checkout takes a book from the available pool and a return takes one of the
+     * loans made here, so the mix never asks for a loan the application must refuse; when the pool a call
+     * needs is empty it falls back to the other loan call, or to a search.
+     */
+    private void call(HttpClient client, int port, Catalog catalog, Endpoint endpoint, Stats stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String base = "http://localhost:" + port;
+        HttpRequest request;
+        ActiveLoan returning = null;
+        String isbn = null;
+
+        if (endpoint == Endpoint.RETURN && (returning = catalog.loaned().poll()) == null) {
+            endpoint = Endpoint.LOAN;
+        }
+        if (endpoint == Endpoint.LOAN && (isbn = catalog.available().poll()) == null) {
+            endpoint = Endpoint.SEARCH;
+        }
+
+        switch (endpoint) {
+            case GET -> request = HttpRequest.newBuilder(URI.create(base + "/api/books/"
+                    + catalog.ids().get(random.nextInt(catalog.ids().size())))).GET().build();
+            case LOAN -> request = HttpRequest.newBuilder(URI.create(base + "/api/loans"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"isbn\": \"" + isbn + "\", \"customer\": \"Load customer\", "
+                            + "\"email\": \"load@email.com\"}"))
+                    .build();
+            case RETURN -> request = HttpRequest.newBuilder(URI.create(base + "/api/loans/" + returning.id()))
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"returned\": true}"))
+                    .build();
+            default -> request = HttpRequest.newBuilder(URI.create(base + (random.nextBoolean()
+                    ? "/api/books?author=Author%20" + random.nextInt(100) + "&page=0&size=20"
+                    : "/api/books?q=title%20" + random.nextInt(books) + "&page=0&size=20"))).GET().build();
+        }
+
+        long sent = System.nanoTime();
+        boolean failed;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            failed = response.statusCode() >= 400;
+            if (endpoint == Endpoint.LOAN && !failed) {
+                catalog.loaned().add(new ActiveLoan(objectMapper.readTree(response.body()).path("id").asLong(), isbn));
+                isbn = null;
+            } else if (endpoint == Endpoint.RETURN && !failed) {
+                catalog.available().add(returning.isbn());
+                returning = null;
+            }
+        } catch (Exception e) {
+            failed = true;
+        }
+        stats.record(endpoint, System.nanoTime() - sent, failed);
+
+        // A failed call leaves its book or loan where it was taken from.
+        if (isbn != null) {
+            catalog.available().add(isbn);
+        }
+        if (returning != null) {
+            catalog.loaned().add(returning);
+        }
+    }
+
+    private Endpoint nextEndpoint() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Endpoint, Integer> weight : mix.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        return Endpoint.SEARCH;
+    }
+
+    private void report(Stats stats, double seconds) throws IOException {
+        Files.createDirectories(output);
+        System.out.printf("%nconcurrency=%d duration=%s books=%d mix=%s java=%d%n",
+                concurrency, duration, books, mix, Runtime.version().feature());
+        System.out.printf("%-8s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "error %", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            long requests = stats.requests.get(endpoint).get();
+            long errors = stats.errors.get(endpoint).get();
+            Histogram latency = stats.latency.get(endpoint).getIntervalHistogram();
+            totalRequests += requests;
+            totalErrors += errors;
+            System.out.printf("%-8s %10d %8d %8.2f %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    endpoint.name().toLowerCase(Locale.ROOT), requests, errors, errorRate(errors, requests) * 100,
+                    requests / seconds,
+                    latency.getValueAtPercentile(50) / 1e6,
+                    latency.getValueAtPercentile(90) / 1e6,
+                    latency.getValueAtPercentile(99) / 1e6,
+                    latency.getMaxValue() / 1e6);
+            try (PrintStream histogram = new PrintStream(output.resolve(endpoint.name().toLowerCase(Locale.ROOT) + ".hgrm").toFile())) {
+                latency.outputPercentileDistribution(histogram, 1e6);
+            }
+
+            if (mix.getOrDefault(endpoint, 0) > 0) {
+                assertThat(requests).as("%s requests", endpoint).isPositive();
+            }
+        }
+        double throughput = totalRequests / seconds;
+        System.out.printf("%-8s %10d %8d %8.2f %10.1f%n", "total", totalRequests, totalErrors,
+                errorRate(totalErrors, totalRequests) * 100, throughput);
+        System.out.printf("latency histograms (ms) written to %s%n", output.toAbsolutePath());
+
+        assertThat(errorRate(totalErrors, totalRequests)).as("error rate").isLessThanOrEqualTo(maxErrorRate);
+        assertThat(throughput).as("requests per second").isGreaterThanOrEqualTo(minThroughput);
+    }
+
+    private static double errorRate(long errors, long requests) {
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    private Catalog seed(BookRepository repository) {
+        List<Book> seeded = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            seeded.add(Book.builder().title("Title " + i).author("Author " + (i % 100)).isbn("load-" + i).build());
+        }
+        List<Long> ids = new ArrayList<>(books);
+        Queue<String> available = new ConcurrentLinkedQueue<>();
+        for (Book book : repository.saveAll(seeded)) {
+            ids.add(book.getId());
+            available.add(book.getIsbn());
+        }
+        return new Catalog(ids, available, new ConcurrentLinkedQueue<>());
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split(":");
+            weights.put(Endpoint.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+
+    private record Catalog(List<Long> ids, Queue<String> available, Queue<ActiveLoan> loaned) {
+    }
+
+    private record ActiveLoan(long id, String isbn) {
+    }
+
+    private static final class Stats {
+
+        private final Map<Endpoint, Recorder> latency = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, AtomicLong> requests = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+
+        Stats() {
+            for (Endpoint endpoint : Endpoint.values()) {
+                latency.put(endpoint, new Recorder(3));
+                requests.put(endpoint, new AtomicLong());
+                errors.put(endpoint, new AtomicLong());
+            }
+        }
+
+        void record(Endpoint endpoint, long nanos, boolean failed) {
+            latency.get(endpoint).recordValue(nanos);
+            requests.get(endpoint).incrementAndGet();
+            if (failed) {
+                errors.get(endpoint).incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.douglasliebl.library.load;
+
+import io.github.douglasliebl.library.MsBooksApplication;
+import io.github.douglasliebl.library.api.config.ExecutionConfig;
+import io.github.douglasliebl.library.api.model.entity.Book;
+import io.github.douglasliebl.library.api.model.repository.BookRepository;
+import io.github.douglasliebl.library.api.search.BookSearchIndex;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same closed-loop load against the application once per execution mode and prints the
+ * throughput and latency percentiles of each, so the modes can be compared on the same hardware.
+ * Excluded from the default build; run it with {@code mvn -Pload-test test}. Tune it with the
+ * {@code load.modes}, {@code load.concurrency}, {@code load.warmup}, {@code load.duration},
+ * {@code load.books} and {@code load.server-threads} system properties. Skipped when the virtual mode
+ * is requested on a JVM without virtual threads, where it would silently run on platform threads too.
+ */
+@Tag("load")
+class ExecutionModeLoadTest {
+
+    private final List<String> modes = Arrays.stream(System.getProperty("load.modes", "platform,virtual").split(","))
+            .map(String::trim)
+            .toList();
+    private final int concurrency = Integer.getInteger("load.concurrency", 64);
+    private final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+    private final Duration duration = Duration.parse(System.getProperty("load.duration", "PT20S"));
+    private final int books = Integer.getInteger("load.books", 1000);
+    private final int serverThreads = Integer.getInteger("load.server-threads", 16);
+
+    @Test
+    @DisplayName("Should serve the same load in every execution mode and report throughput and latency")
+    public void compareExecutionModes() throws Exception {
+        Assumptions.assumeTrue(!modes.contains("virtual") || ExecutionConfig.virtualThreadsAvailable(),
+                "virtual threads are not available on Java " + Runtime.version().feature());
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            results.put(mode, run(mode));
+        }
+
+        System.out.printf("%nconcurrency=%d duration=%s server-threads=%d java=%d%n",
+                concurrency, duration, serverThreads, Runtime.version().feature());
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %10s%n", "mode", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        results.forEach((mode, result) -> System.out.printf("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                mode, result.requests(), result.errors(), result.throughput(),
+                result.latency().getValueAtPercentile(50) / 1e6,
+                result.latency().getValueAtPercentile(99) / 1e6,
+                result.latency().getMaxValue() / 1e6));
+
+        results.values().forEach(result -> {
+            assertThat(result.requests()).isPositive();
+            assertThat(result.errors()).isZero();
+        });
+    }
+
+    private Result run(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MsBooksApplication.class)
+                .properties(
+                        "server.port=0",
+                        "app.execution.mode=" + mode,
+                        "server.tomcat.threads.max=" + serverThreads,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=warn")
+                .run()) {
+            seed(context.getBean(BookRepository.class));
+            context.getBean(BookSearchIndex.class).rebuild();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newFixedThreadPool(concurrency))
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            drive(client, port, warmup, new Recorder(3), new AtomicLong(), new AtomicLong());
+
+            Recorder recorder = new Recorder(3);
+            AtomicLong requests = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            long start = System.nanoTime();
+            drive(client, port, duration, recorder, requests, errors);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            return new Result(requests.get(), errors.get(), requests.get() / seconds, recorder.getIntervalHistogram());
+        }
+    }
+
+    private void drive(HttpClient client, int port, Duration length, Recorder recorder,
+                       AtomicLong requests, AtomicLong errors) throws InterruptedException {
+        long deadline = System.nanoTime() + length.toNanos();
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            users.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(nextUri(port)).GET().build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    recorder.recordValue(System.nanoTime() - sent);
+                    requests.incrementAndGet();
+                }
+            });
+        }
+        users.shutdown();
+        users.awaitTermination(length.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    private URI nextUri(int port) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String path = random.nextBoolean()
+                ? "/api/books?author=Author%20" + random.nextInt(100) + "&page=0&size=20"
+                : "/api/books?q=title%20" + random.nextInt(books) + "&page=0&size=20";
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void seed(BookRepository repository) {
+        List<Book> catalog = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            catalog.add(Book.builder().title("Title " + i).author("Author " + (i % 100)).isbn("load-" + i).build());
+        }
+        repository.saveAll(catalog);
+    }
+
+    private record Result(long requests, long errors, double throughput, Histogram latency) {
+    }
+}